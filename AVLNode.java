@@ -6,8 +6,11 @@
 	 * it in this file, not in another file.
 	 * 
 	 * This class can and MUST be modified (It must implement IAVLNode).
+	 * 
+	 * The class is static and keeps no realNode flag, so a node holds no hidden
+	 * reference to its tree: 40 bytes per node instead of 48 (compressed oops).
 	 */
-	public class AVLNode implements IAVLNode {
+	public static class AVLNode implements IAVLNode {
 
 		// AVLNode fields
 		protected String info;
@@ -17,7 +20,7 @@
 		protected IAVLNode parent;
 		protected int rank;
 		protected int size;
-		protected boolean realNode;
+		// no realNode flag: every AVLNode is real (the shared VirtualNode is the only virtual one)
 
 		// AVLNode constructors
 		public AVLNode(int key, String info) {
@@ -28,13 +31,30 @@
 			this.parent = null;
 			this.rank = 0;
 			this.size = 1;
-			this.realNode = true;
 		}
 
 		public AVLNode(int key) {
 			this(key, null);
 		}
 
+		// re-uses the node for the item (key, info) as a detached leaf, used by AVLNodePool
+		// complexity: O(1)
+		void reuse(int key, String info) {
+			this.key = key;
+			this.info = info;
+			this.left = virtualNode;
+			this.right = virtualNode;
+			this.parent = null;
+			this.rank = 0;
+			this.size = 1;
+		}
+
+		// replaces the node`s info in place, used by AVLTree.replaceInfo
+		// complexity: O(1)
+		void setInfo(String info) {
+			this.info = info;
+		}
+
 		// returns the node`s key
 		// complexity: O(1)
 		@Override
@@ -96,7 +116,7 @@
 		// complexity: O(1)
 		@Override
 		public boolean isRealNode() {
-			return this.realNode;
+			return true;
 		}
 
 		// sets the node`s height/ rank
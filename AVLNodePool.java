@@ -0,0 +1,122 @@
+
+/**
+ *
+ *
+ * AVLNodePool
+ *
+ * A bounded free-list of AVLNodes for one AVLTree, see AVLTree.enableNodePool.
+ * Nodes deleted from the tree are kept here and handed out again by later
+ * inserts, instead of being left to the garbage collector.
+ *
+ */
+
+public class AVLNodePool {
+
+	// fields of AVLNodePool
+	private final AVLTree.AVLNode[] free;
+	private int pooled;
+	private long hits;
+	private long misses;
+	private long dropped;
+
+	// pool-constructor, keeps at most capacity free nodes
+	public AVLNodePool(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity must not be negative");
+		}
+		this.free = new AVLTree.AVLNode[capacity];
+		this.pooled = 0;
+	}
+
+	// returns a detached leaf node holding (key, info), re-used from the pool if possible
+	// complexity: O(1)
+	AVLTree.AVLNode take(int key, String info) {
+		if (this.pooled == 0) {
+			this.misses++;
+			return new AVLTree.AVLNode(key, info);
+		}
+
+		this.hits++;
+		this.pooled--;
+		AVLTree.AVLNode node = this.free[this.pooled];
+		this.free[this.pooled] = null;
+		node.reuse(key, info);
+		return node;
+	}
+
+	// keeps a node that was unlinked from the tree, or drops it if the pool is full
+	// complexity: O(1)
+	void give(AVLTree.AVLNode node) {
+		if (this.pooled == this.free.length) {
+			this.dropped++;
+			return;
+		}
+
+		// do not keep the info (or any neighbour) alive while the node waits in the pool
+		node.reuse(0, null);
+		this.free[this.pooled] = node;
+		this.pooled++;
+	}
+
+	/**
+	 * public int getCapacity()
+	 *
+	 * Returns the maximal number of free nodes the pool keeps.
+	 */
+	// complexity: O(1)
+	public int getCapacity() {
+		return this.free.length;
+	}
+
+	/**
+	 * public int getPooled()
+	 *
+	 * Returns the number of free nodes currently in the pool.
+	 */
+	// complexity: O(1)
+	public int getPooled() {
+		return this.pooled;
+	}
+
+	/**
+	 * public long getHits()
+	 *
+	 * Returns the number of inserts that re-used a pooled node.
+	 */
+	// complexity: O(1)
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * public long getMisses()
+	 *
+	 * Returns the number of inserts that had to allocate a new node.
+	 */
+	// complexity: O(1)
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * public long getDropped()
+	 *
+	 * Returns the number of deleted nodes that were left to the garbage collector
+	 * because the pool was full.
+	 */
+	// complexity: O(1)
+	public long getDropped() {
+		return this.dropped;
+	}
+
+	/**
+	 * public double getHitRate()
+	 *
+	 * Returns hits / (hits + misses), or 0 if no node was taken yet.
+	 */
+	// complexity: O(1)
+	public double getHitRate() {
+		long taken = this.hits + this.misses;
+		return taken == 0 ? 0 : (double) this.hits / taken;
+	}
+}
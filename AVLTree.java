@@ -1,4 +1,12 @@
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  *
  *
@@ -14,6 +22,12 @@ public class AVLTree {
 	static IAVLNode virtualNode = new VirtualNode();
 	private IAVLNode root;
 	private int size;
+	private AVLTreeMetrics metrics; // null unless enableMetrics() was called
+	private AVLNodePool pool; // null unless enableNodePool() was called
+	private IAVLNode finger; // last node reached by a finger operation, or null
+	private IAVLNode fingerNext; // the node after the finger in key order, virtualNode if none, null if not known
+	private boolean sizesStale; // true while subtree sizes are not maintained, see disableSizeTracking()
+	private AVLTreeAggregate<Object> aggregate; // null unless the tree was made with one, see AVLTree(AVLTreeAggregate)
 
 	// empty tree-constructor
 	public AVLTree() {
@@ -21,12 +35,43 @@ public class AVLTree {
 		this.size = 0;
 	}
 	
+	// empty tree-constructor for a tree whose nodes keep the aggregate of their subtree,
+	// kept up wherever subtree sizes are, for aggregate(lo, hi)
+	@SuppressWarnings("unchecked") // the nodes only ever hold values made by this aggregate
+	public AVLTree(AVLTreeAggregate<?> aggregate) {
+		this();
+		this.aggregate = (AVLTreeAggregate<Object>) aggregate;
+	}
+
 	// non empty tree-constructor
 	public AVLTree(IAVLNode root) {
 		this.root = root;
 		this.size = (this.root.getLeft().getSize() + this.root.getRight().getSize() + 1);
 		this.root.setParent(null);
 	}
+
+	// bulk-load tree-constructor, from keys sorted in strictly increasing order and their infos
+	// builds a perfectly balanced tree directly (no rotations), big halves are built in parallel
+	// complexity: O(n) work
+	public AVLTree(int[] keys, String[] infos) {
+		if (keys.length != infos.length) {
+			throw new IllegalArgumentException("keys and infos must have the same length");
+		}
+		for (int i = 1; i < keys.length; i++) {
+			if (keys[i - 1] >= keys[i]) {
+				throw new IllegalArgumentException("keys must be sorted in strictly increasing order");
+			}
+		}
+
+		this.size = keys.length;
+		if (keys.length == 0) {
+			this.root = null;
+		} else if (keys.length < BulkBuild.PARALLEL_THRESHOLD) {
+			this.root = BulkBuild.build(keys, infos, 0, keys.length - 1, this);
+		} else {
+			this.root = ForkJoinPool.commonPool().invoke(new BulkBuild(keys, infos, 0, keys.length - 1, this));
+		}
+	}
 	
 	
 	
@@ -43,22 +88,25 @@ public class AVLTree {
 	}
 	
 	
-	// recursive helper for search method, in in-order walk search
+	// helper for search method, walks down from node in a loop
 	//returns null if k is not in the tree, otherwise returns the node with key value k
 	// complexity: O(logn)
 	private IAVLNode search(IAVLNode node, int k) {
-		if (node.isRealNode() == false) {
-			return null;
-		}
-		if (node.getKey() == k) {
-			return node;
-		}
+		while (node.isRealNode()) {
+			if (this.metrics != null) {
+				this.metrics.step();
+			}
+			if (node.getKey() == k) {
+				return node;
+			}
 
-		if (node.getKey() > k) {
-			return search(node.getLeft(), k);
-		} else {
-			return search(node.getRight(), k);
+			if (node.getKey() > k) {
+				node = node.getLeft();
+			} else {
+				node = node.getRight();
+			}
 		}
+		return null;
 	}
 
 	/**
@@ -74,6 +122,9 @@ public class AVLTree {
 		}
 
 		IAVLNode node = search(this.root, k);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
 		if (node == null) {
 			return null;
 		}
@@ -86,12 +137,18 @@ public class AVLTree {
 	// complexity: O(1)
 	private void promote(IAVLNode node) {
 		node.setHeight(node.getHeight() + 1);
+		if (this.metrics != null) {
+			this.metrics.promotion();
+		}
 	}
 
 	// decreases node`s rank by 1
 	// complexity: O(1)
 	private void demote(IAVLNode node) {
 		node.setHeight(node.getHeight() - 1);
+		if (this.metrics != null) {
+			this.metrics.demotion();
+		}
 	}
 
 	// rotates right x-y as we saw at class: y -> upper, x -> lower
@@ -114,8 +171,12 @@ public class AVLTree {
 		y.getLeft().setParent(y);
 		x.setRight(y);
 
-		y.setSize(y.getLeft().getSize() + y.getRight().getSize() + 1);
-		x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
+		if (this.sizesStale == false) {
+			y.setSize(y.getLeft().getSize() + y.getRight().getSize() + 1);
+			x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
+			updateAggregate(y);
+			updateAggregate(x);
+		}
 	}
 
 	// rotates left x-y as we saw at class: y -> lower, x -> upper
@@ -138,10 +199,22 @@ public class AVLTree {
 		x.getRight().setParent(x);
 		y.setLeft(x);
 
-		x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
-		y.setSize(y.getLeft().getSize() + y.getRight().getSize() + 1);
+		if (this.sizesStale == false) {
+			x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
+			y.setSize(y.getLeft().getSize() + y.getRight().getSize() + 1);
+			updateAggregate(x);
+			updateAggregate(y);
+		}
 	}
 	
+	// records a single or double rotation in the metrics, if enabled
+	// complexity: O(1)
+	private void countRotation(boolean afterInsert, boolean isDouble) {
+		if (this.metrics != null) {
+			this.metrics.rotation(afterInsert, isDouble);
+		}
+	}
+
 	// returns the rank-difference between parent and child
 	// complexity: O(1)
 	private int rankDiff(IAVLNode parent, IAVLNode child) {
@@ -178,12 +251,14 @@ public class AVLTree {
 		if (rankDiff(z, x) == 0 && rankDiff(z, y) == 2) {
 			if (rankDiff(x, a) == 1 && rankDiff(x, b) == 2) { // Case 2
 				rightRotate(z, x);
+				countRotation(true, false);
 				demote(z);
 				return 2;
 			}
 			if (rankDiff(x, a) == 2 && rankDiff(x, b) == 1) { // Case 3
 				leftRotate(b, x);
 				rightRotate(z, b);
+				countRotation(true, true);
 				demote(x);
 				demote(z);
 				promote(b);
@@ -192,6 +267,7 @@ public class AVLTree {
 			// rebalance after join
 			if (rankDiff(x, a) == 1 && rankDiff(x, b) == 1) {
 				rightRotate(z, x);
+				countRotation(true, false);
 				promote(x);
 				return insertRebalance(x) + 2;
 			}
@@ -220,12 +296,14 @@ public class AVLTree {
 		if (rankDiff(z, y) == 2 && rankDiff(z, x) == 0) {
 			if (rankDiff(x, b) == 2 && rankDiff(x, a) == 1) { // Case 2
 				leftRotate(x, z);
+				countRotation(true, false);
 				demote(z);
 				return 2;
 			}
 			if (rankDiff(x, b) == 1 && rankDiff(x, a) == 2) { // Case "3" 1,2
 				rightRotate(x, b);
 				leftRotate(b, z);
+				countRotation(true, true);
 				demote(x);
 				demote(z);
 				promote(b);
@@ -233,6 +311,7 @@ public class AVLTree {
 			}
 			if (rankDiff(x, a) == 1 && rankDiff(x, b) == 1) {
 				leftRotate(x, z);
+				countRotation(true, false);
 				promote(x);
 				return insertRebalance(x) + 2;
 			}
@@ -256,21 +335,33 @@ public class AVLTree {
 		}
 	}
 	
-	// finds the position to insert a node to the tree, by in-order walk
-	// returns null if tree is empty (insert as root), otherwise returns the wanted node
-	// pre-cond: node is realNode, node not exists in tree (checked before func call)
+	// finds the position to insert key k to the tree, by a single walk down from the root
+	// returns null if tree is empty (insert as root), the node with key k if it already exists,
+	// otherwise returns the node that should become the parent of the new node
 	// complexity: O(logn)
-	private IAVLNode treePosition(IAVLNode node) {
+	private IAVLNode treePosition(int k) {
 		if (empty()) {
 			return this.root;
 		}
 
-		IAVLNode x = this.root;
+		return descend(this.root, k);
+	}
+
+	// walks down from x to the node with key k, or to the node that should become its parent
+	// pre-cond: x is realNode and k is in the key range of x`s subtree
+	// complexity: O(x.rank)
+	private IAVLNode descend(IAVLNode x, int k) {
 		IAVLNode y = null;
 
 		while (x.isRealNode()) {
+			if (this.metrics != null) {
+				this.metrics.step();
+			}
+			if (k == x.getKey()) {
+				return x;
+			}
 			y = x;
-			if (node.getKey() < x.getKey()) {
+			if (k < x.getKey()) {
 				x = x.getLeft();
 			} else {
 				x = x.getRight();
@@ -316,13 +407,22 @@ public class AVLTree {
 		child.setParent(parent);
 	}
 
-	// increases size of all nodes, from node up to root
+	// increases size of all nodes, from node up to root, and updates their aggregates (nothing to do while sizes are stale)
 	// complexity: O(logn)
 	private void increaseSize(IAVLNode node) {
+		if (this.sizesStale) {
+			return;
+		}
 		IAVLNode parent = node.getParent();
+		int length = 0;
 		while (parent != null) {
 			parent.setSize(parent.getSize() + 1);
+			updateAggregate(parent);
 			parent = parent.getParent();
+			length++;
+		}
+		if (this.metrics != null) {
+			this.metrics.sizeWalk(length);
 		}
 	}
 
@@ -343,14 +443,42 @@ public class AVLTree {
 	 */
 	// complexity: O(logn)
 	public int insert(int k, String i) {
-		IAVLNode node = new AVLNode(k, i);
+		IAVLNode insertPos = treePosition(k);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
 
 		// Returns -1 if an item with key k already exists in the tree
-		if (search(k) != null) {
+		if (insertPos != null && insertPos.getKey() == k) {
 			return -1;
 		}
 
-		IAVLNode insertPos = treePosition(node);
+		// allocate (or take from the pool) only once we know the key is new
+		this.fingerNext = null;
+		return insertNode(insertPos, newNode(k, i));
+	}
+
+	// returns a new leaf node for (k, i), taken from the node pool if there is one
+	// complexity: O(1)
+	private IAVLNode newNode(int k, String i) {
+		return this.pool != null ? this.pool.take(k, i) : createNode(k, i);
+	}
+
+	// returns a new leaf node for (k, i), one that holds its aggregate if the tree keeps one;
+	// IntervalAVLTree makes its IntervalNodes here
+	// complexity: O(1)
+	IAVLNode createNode(int k, String i) {
+		if (this.aggregate == null) {
+			return new AVLNode(k, i);
+		}
+		AggregateNode node = new AggregateNode(k, i);
+		node.value = lift(node);
+		return node;
+	}
+
+	// links node under insertPos (as root if insertPos is null) and rebalances, returns num of balance operations
+	// complexity: O(logn)
+	private int insertNode(IAVLNode insertPos, IAVLNode node) {
 		if (insertPos == null) {
 			this.root = node;
 			this.size += 1;
@@ -373,6 +501,123 @@ public class AVLTree {
 	
 	
 
+	// finds the node of k, or the node that should become its parent, starting at the finger
+	// climbs from the finger until k is inside the key range of the current subtree, then walks down
+	// a key next to the finger can still be O(logn) steps away, when the two sit on either side of a
+	// high ancestor (there are no level links to cut across), but a sorted run of searches climbs and
+	// descends every edge of the tree a constant number of times, as an in-order walk does
+	// a run of increasing inserts would climb back over the nodes it added, so a key between the
+	// finger and fingerNext is placed at once: one of the two has a free child on k`s side
+	// pre-cond: tree is not empty
+	// complexity: O(logn), amortized O(1) per key of a sorted run
+	private IAVLNode fingerPosition(int k) {
+		if (this.finger == null) {
+			return descend(this.root, k);
+		}
+
+		if (this.fingerNext != null && k > this.finger.getKey()
+				&& (this.fingerNext == virtualNode || k <= this.fingerNext.getKey())) {
+			if (this.metrics != null) {
+				this.metrics.step();
+			}
+			if (this.fingerNext != virtualNode
+					&& (k == this.fingerNext.getKey() || this.finger.getRight().isRealNode())) {
+				return this.fingerNext;
+			}
+			return this.finger;
+		}
+
+		IAVLNode x = this.finger;
+		while (x.getKey() != k) {
+			boolean goLeft = k < x.getKey();
+
+			// the nearest ancestor bounding the subtree of x on k`s side
+			IAVLNode child = x;
+			IAVLNode bound = x.getParent();
+			while (bound != null) {
+				if (this.metrics != null) {
+					this.metrics.step();
+				}
+				if ((goLeft ? bound.getLeft() : bound.getRight()) != child) {
+					break;
+				}
+				child = bound;
+				bound = bound.getParent();
+			}
+
+			if (bound == null || (goLeft ? bound.getKey() < k : bound.getKey() > k)) {
+				return descend(x, k);
+			}
+			x = bound;
+		}
+
+		return x;
+	}
+
+	/**
+	 * public String fingerSearch(int k)
+	 *
+	 * Same as search(k), but starts from the node reached by the last finger
+	 * operation instead of the root, and moves the finger to where the search
+	 * ended. Each search is O(logn) in the worst case, even for a key next to the
+	 * finger; a sorted run of searches costs amortized O(1) each.
+	 */
+	// complexity: O(logn), amortized O(1) per key of a sorted run
+	public String fingerSearch(int k) {
+		if (empty()) {
+			return null;
+		}
+
+		IAVLNode node = fingerPosition(k);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
+		if (node != this.finger) {
+			this.finger = node;
+			this.fingerNext = null;
+		}
+		return node.getKey() == k ? node.getValue() : null;
+	}
+
+	/**
+	 * public int fingerInsert(int k, String i)
+	 *
+	 * Same as insert(k, i), but finds the position starting from the node reached
+	 * by the last finger operation, and moves the finger to the inserted node.
+	 */
+	// complexity: O(logn), amortized O(1) per key of a sorted run of inserts (search and rebalancing)
+	public int fingerInsert(int k, String i) {
+		IAVLNode insertPos = empty() ? null : fingerPosition(k);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
+
+		// Returns -1 if an item with key k already exists in the tree
+		if (insertPos != null && insertPos.getKey() == k) {
+			if (insertPos != this.finger) {
+				this.finger = insertPos;
+				this.fingerNext = null;
+			}
+			return -1;
+		}
+
+		// the node after the new one: its parent if it is a left child, else what came after the parent
+		IAVLNode next = null;
+		if (insertPos == null) {
+			next = virtualNode;
+		} else if (k < insertPos.getKey()) {
+			next = insertPos;
+		} else if (insertPos == this.finger) {
+			next = this.fingerNext;
+		}
+
+		IAVLNode node = newNode(k, i);
+		int res = insertNode(insertPos, node);
+		this.finger = node;
+		this.fingerNext = next;
+		return res;
+	}
+
 	// replaces node with his successor
 	// complexity: O(logn)
 	private void replaceWithSuccessor(IAVLNode node) {
@@ -477,6 +722,7 @@ public class AVLTree {
 		// Case 2: 3,1 1,1
 		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 1) {
 			leftRotate(y, z);
+			countRotation(false, false);
 			demote(z);
 			promote(y);
 			return 3;
@@ -485,6 +731,7 @@ public class AVLTree {
 		// Case 3: 3,1 2,1
 		if (rankDiff(y, a) == 2 && rankDiff(y, b) == 1) {
 			leftRotate(y, z);
+			countRotation(false, false);
 			demote(z);
 			demote(z);
 			return deleteRebalance(y.getParent()) + 3;
@@ -494,6 +741,7 @@ public class AVLTree {
 		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 2) {
 			rightRotate(y, a);
 			leftRotate(a, z);
+			countRotation(false, true);
 			demote(z);
 			demote(z);
 			demote(y);
@@ -516,6 +764,7 @@ public class AVLTree {
 		// Case 2: 1,3 1,1
 		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 1) {
 			rightRotate(z, y);
+			countRotation(false, false);
 			demote(z);
 			promote(y);
 			return 3;
@@ -524,6 +773,7 @@ public class AVLTree {
 		// Case 3: 1,3 1,2
 		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 2) {
 			rightRotate(z, y);
+			countRotation(false, false);
 			demote(z);
 			demote(z);
 			return deleteRebalance(y.getParent()) + 3;
@@ -533,6 +783,7 @@ public class AVLTree {
 		if (rankDiff(y, a) == 2 && rankDiff(y, b) == 1) {
 			leftRotate(b, y);
 			rightRotate(z, b);
+			countRotation(false, true);
 			demote(z);
 			demote(z);
 			demote(y);
@@ -603,6 +854,7 @@ public class AVLTree {
 			replaceChild(z, x);
 		} else {
 			this.root = x;
+			x.setParent(null);
 		}
 		
 		decreaseSize(y);
@@ -610,13 +862,23 @@ public class AVLTree {
 		return deleteRebalance(z);
 	}
 
-	// decreases size of all nodes, from node up to root
+	// decreases size of all nodes, from node up to root, and updates their aggregates (nothing to do while sizes are stale)
+	// after replaceWithSuccessor this walk also passes the successor, which took over the deleted node`s place
 	// complexity: O(logn)
 	private void decreaseSize(IAVLNode node) {
+		if (this.sizesStale) {
+			return;
+		}
 		IAVLNode parent = node.getParent();
+		int length = 0;
 		while (parent != null) {
 			parent.setSize(parent.getSize() - 1);
+			updateAggregate(parent);
 			parent = parent.getParent();
+			length++;
+		}
+		if (this.metrics != null) {
+			this.metrics.sizeWalk(length);
 		}
 	}
 
@@ -636,6 +898,9 @@ public class AVLTree {
 		}
 
 		IAVLNode node = search(this.root, k);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
 
 		// Returns -1 if an item with key k was not found in the tree
 		if (node == null) {
@@ -657,6 +922,16 @@ public class AVLTree {
 		//decreaseSize(node);
 		this.size--;
 
+		if (this.finger == node) {
+			this.finger = null;
+		}
+		this.fingerNext = null;
+
+		// node is unlinked now, keep it for the next insert
+		if (this.pool != null && node instanceof AVLNode) {
+			this.pool.give((AVLNode) node);
+		}
+
 		return res;
 	}
 
@@ -672,12 +947,7 @@ public class AVLTree {
 			return null;
 		}
 
-		IAVLNode node = this.root;
-		while (node.getLeft().isRealNode()) {
-			node = node.getLeft();
-		}
-
-		return node.getValue();
+		return minNode(this.root).getValue();
 	}
 
 	/**
@@ -692,30 +962,180 @@ public class AVLTree {
 			return null;
 		}
 
-		IAVLNode node = this.root;
-		while (node.getRight().isRealNode()) {
-			node = node.getRight();
-		}
-
-		return node.getValue();
+		return maxNode(this.root).getValue();
 	}
 
-	// update an array of nodes in the tree, in-order: Helper for keysToArray and infoToArray
+	// update an array of nodes in the subtree of node, in-order, starting at index
+	// returns the index after the last node written
+	// walks through successor links, no recursion
 	// complexity: O(n)
 	public int nodeToArray(IAVLNode node, IAVLNode[] nodes, int index) {
 		if (node.isRealNode() == false) {
 			return index;
 		}
-		index = nodeToArray(node.getLeft(), nodes, index);
 
-		nodes[index] = node;
-		index++;
-
-		index = nodeToArray(node.getRight(), nodes, index);
+		ensureSizes();
+		int count = node.getSize();
+		IAVLNode current = minNode(node);
+		for (int i = 0; i < count; i++) {
+			nodes[index] = current;
+			index++;
+			current = successor(current);
+		}
 
 		return index;
 	}
 
+	// returns the node with the smallest key in the subtree of node
+	// complexity: O(logn)
+	private IAVLNode minNode(IAVLNode node) {
+		while (node.getLeft().isRealNode()) {
+			node = node.getLeft();
+		}
+		return node;
+	}
+
+	// returns the node with the largest key in the subtree of node
+	// complexity: O(logn)
+	private IAVLNode maxNode(IAVLNode node) {
+		while (node.getRight().isRealNode()) {
+			node = node.getRight();
+		}
+		return node;
+	}
+
+	/**
+	 * public IAVLNode successor(IAVLNode node)
+	 *
+	 * Returns the node with the next key in the tree, or null if node holds the
+	 * largest key. precondition: node is a real node of this tree.
+	 */
+	// walks through parent links, no recursion
+	// complexity: O(logn), O(1) amortized over a full walk
+	public IAVLNode successor(IAVLNode node) {
+		if (node.getRight().isRealNode()) {
+			return minNode(node.getRight());
+		}
+
+		IAVLNode parent = node.getParent();
+		while (parent != null && parent.getRight() == node) {
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+
+	/**
+	 * public IAVLNode predecessor(IAVLNode node)
+	 *
+	 * Returns the node with the previous key in the tree, or null if node holds
+	 * the smallest key. precondition: node is a real node of this tree.
+	 */
+	// symmetric to successor
+	// complexity: O(logn), O(1) amortized over a full walk
+	public IAVLNode predecessor(IAVLNode node) {
+		if (node.getLeft().isRealNode()) {
+			return maxNode(node.getLeft());
+		}
+
+		IAVLNode parent = node.getParent();
+		while (parent != null && parent.getLeft() == node) {
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+
+	/**
+	 * public IAVLNode ceiling(int k)
+	 *
+	 * Returns the node with the smallest key >= k, or null if there is none.
+	 */
+	// complexity: O(logn)
+	public IAVLNode ceiling(int k) {
+		IAVLNode res = null;
+		IAVLNode node = this.root;
+		while (node != null && node.isRealNode()) {
+			if (node.getKey() == k) {
+				return node;
+			}
+			if (node.getKey() > k) {
+				res = node;
+				node = node.getLeft();
+			} else {
+				node = node.getRight();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * public IAVLNode floor(int k)
+	 *
+	 * Returns the node with the largest key <= k, or null if there is none.
+	 */
+	// complexity: O(logn)
+	public IAVLNode floor(int k) {
+		IAVLNode res = null;
+		IAVLNode node = this.root;
+		while (node != null && node.isRealNode()) {
+			if (node.getKey() == k) {
+				return node;
+			}
+			if (node.getKey() < k) {
+				res = node;
+				node = node.getRight();
+			} else {
+				node = node.getLeft();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * public IAVLNode higher(int k)
+	 *
+	 * Returns the node with the smallest key > k, or null if there is none.
+	 */
+	// complexity: O(logn)
+	public IAVLNode higher(int k) {
+		if (k == Integer.MAX_VALUE) {
+			return null;
+		}
+		return ceiling(k + 1);
+	}
+
+	/**
+	 * public IAVLNode lower(int k)
+	 *
+	 * Returns the node with the largest key < k, or null if there is none.
+	 */
+	// complexity: O(logn)
+	public IAVLNode lower(int k) {
+		if (k == Integer.MIN_VALUE) {
+			return null;
+		}
+		return floor(k - 1);
+	}
+
+	/**
+	 * public IAVLNode[] range(int lo, int hi)
+	 *
+	 * Returns the nodes with lo <= key <= hi, sorted by key, or an empty array if
+	 * there are none.
+	 */
+	// complexity: O(logn + k), k = number of nodes returned
+	public IAVLNode[] range(int lo, int hi) {
+		IAVLNode[] nodes = new IAVLNode[countInRange(lo, hi)];
+
+		int i = 0;
+		for (IAVLNode node = ceiling(lo); i < nodes.length; node = successor(node)) {
+			nodes[i] = node;
+			i++;
+		}
+		return nodes;
+	}
+
 	/**
 	 * public int[] keysToArray()
 	 *
@@ -723,19 +1143,17 @@ public class AVLTree {
 	 * if the tree is empty.
 	 */
 	// returns Tree as an array of keys, by order
+	// in-order walk through successor links, no scratch array and no recursion
 	// complexity: O(n)
 	public int[] keysToArray() {
-		IAVLNode[] nodes = new IAVLNode[this.size];
+		int[] arrKeys = new int[this.size];
 
 		if (empty()) {
-			return new int[this.size];
+			return arrKeys;
 		}
 
-		nodeToArray(this.root, nodes, 0);
-
-		int[] arrKeys = new int[this.size];
 		int i = 0;
-		for (IAVLNode node : nodes) {
+		for (IAVLNode node = minNode(this.root); node != null; node = successor(node)) {
 			arrKeys[i] = node.getKey();
 			i++;
 		}
@@ -749,101 +1167,476 @@ public class AVLTree {
 	 * respective keys, or an empty array if the tree is empty.
 	 */
 	// returns Tree as an array of info`s, by order (of keys)
+	// in-order walk through successor links, no scratch array and no recursion
 	// complexity: O(n)
 	public String[] infoToArray() {
-		IAVLNode[] nodes = new IAVLNode[this.size];
+		String[] arrValues = new String[this.size];
 
 		if (empty()) {
-			return new String[this.size];
+			return arrValues;
 		}
 
-		nodeToArray(this.root, nodes, 0);
-
-		String[] arrValues = new String[this.size];
 		int i = 0;
-		for (IAVLNode node : nodes) {
+		for (IAVLNode node = minNode(this.root); node != null; node = successor(node)) {
 			arrValues[i] = node.getValue();
 			i++;
 		}
 		return arrValues;
 	}
-	
 
 	/**
-	 * public int size()
+	 * public Iterator<IAVLNode> iterator()
 	 *
-	 * Returns the number of nodes in the tree.
+	 * Returns a lazy iterator over the nodes of the tree, in ascending key order.
+	 * The tree must not be modified while the iterator is in use.
 	 */
-	// complexity: O(1)
-	public int size() {
-		return this.size;
+	// complexity: O(logn) to create, O(1) amortized per node
+	public Iterator<IAVLNode> iterator() {
+		return iterator(Integer.MIN_VALUE, Integer.MAX_VALUE, true);
 	}
-	
-	
-	// recursive helper for split, joins sub-trees of the tree to biggerTree/smallerTree, up to the root, as we saw at class
-	// complexity: O(logn)
-	private void splitRec(IAVLNode x, AVLTree smaller, AVLTree bigger) {
-		if (x.getParent() == null) {
-			return;
-		}
 
-		IAVLNode parent = x.getParent();
-		if (isLeftChild(x)) {
-			bigger.join(new AVLNode(parent.getKey(), parent.getValue()),
-					x.getParent().getRight().isRealNode() ? new AVLTree(x.getParent().getRight()) : new AVLTree());
-		} else {
-			smaller.join(new AVLNode(parent.getKey(), parent.getValue()),
-					x.getParent().getLeft().isRealNode() ? new AVLTree(x.getParent().getLeft()) : new AVLTree());
+	/**
+	 * public Iterator<IAVLNode> iterator(int from, int to, boolean ascending)
+	 *
+	 * Returns a lazy iterator over the nodes with from <= key <= to, in ascending
+	 * or descending key order. No array is allocated; the caller may stop at any
+	 * point. The tree must not be modified while the iterator is in use.
+	 */
+	// complexity: O(logn) to create, O(1) amortized per node
+	public Iterator<IAVLNode> iterator(int from, int to, boolean ascending) {
+		if (from > to) {
+			return new NodeIterator(null, to, ascending);
 		}
-
-		splitRec(parent, smaller, bigger);
+		if (ascending) {
+			return new NodeIterator(ceiling(from), to, true);
+		}
+		return new NodeIterator(floor(to), from, false);
 	}
 
 	/**
-	 * public AVLTree[] split(int x)
+	 * public Spliterator<IAVLNode> spliterator(int from, int to)
 	 *
-	 * splits the tree into 2 trees according to the key x. Returns an array [t1,
-	 * t2] with two AVL trees. keys(t1) < x < keys(t2).
-	 * 
-	 * precondition: search(x) != null (i.e. you can also assume that the tree is
-	 * not empty) postcondition: none
+	 * Returns a sized, ordered spliterator over the nodes with from <= key <= to,
+	 * in ascending key order, e.g. for StreamSupport.stream(t.spliterator(lo, hi), false).
+	 * Nodes are produced lazily, the tree must not be modified meanwhile.
 	 */
-	// complexity: O(logn)
+	// complexity: O(logn) to create, O(1) amortized per node
+	public Spliterator<IAVLNode> spliterator(int from, int to) {
+		return Spliterators.spliterator(iterator(from, to, true), countInRange(from, to),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
 
-	public AVLTree[] split(int x) {
-		AVLTree[] result = new AVLTree[2];
-		IAVLNode node = search(this.root, x);
+	// in-order cursor, moves by successor/predecessor until the key passes the bound
+	private class NodeIterator implements Iterator<IAVLNode> {
+		private IAVLNode next;
+		private final int bound;
+		private final boolean ascending;
 
-		AVLTree smaller = null;
-		if (node.getLeft().isRealNode()) {
-			smaller = new AVLTree(node.getLeft());
-		} else {
-			smaller = new AVLTree();
+		private NodeIterator(IAVLNode first, int bound, boolean ascending) {
+			this.bound = bound;
+			this.ascending = ascending;
+			this.next = inBound(first) ? first : null;
 		}
 
-		AVLTree bigger = null;
-		if (node.getRight().isRealNode()) {
-			bigger = new AVLTree(node.getRight());
-		} else {
-			bigger = new AVLTree();
+		// returns true iff node is real and does not pass the bound
+		private boolean inBound(IAVLNode node) {
+			if (node == null) {
+				return false;
+			}
+			return this.ascending ? node.getKey() <= this.bound : node.getKey() >= this.bound;
 		}
 
-		splitRec(node, smaller, bigger);
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
 
-		result[0] = smaller;
-		result[1] = bigger;
-		return result;
+		@Override
+		public IAVLNode next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+
+			IAVLNode node = this.next;
+			IAVLNode following = this.ascending ? successor(node) : predecessor(node);
+			this.next = inBound(following) ? following : null;
+			return node;
+		}
 	}
 	
-	
 
-	// fixes nodes size after join
-	// complexity: O(|T1.rank - T2.rank| + 1)
-	private void fixSize(IAVLNode node) {
-		IAVLNode parent = node.getParent();
-		while (parent != null) {
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of nodes in the tree.
+	 */
+	// complexity: O(1)
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * public AVLTree copy()
+	 *
+	 * Returns an independent copy of the tree with the same shape, ranks and sizes.
+	 * Changes to either tree are not seen by the other.
+	 */
+	// complexity: O(n), no rebalancing
+	public AVLTree copy() {
+		AVLTree res = newTree();
+		if (empty()) {
+			return res;
+		}
+
+		res.root = copyNode(this.root);
+		res.root.setParent(null);
+		res.size = this.size;
+		res.sizesStale = this.sizesStale;
+		return res;
+	}
+
+	/**
+	 * public FrozenAVLTree freeze()
+	 *
+	 * Returns an immutable snapshot of the tree in a cache-friendly array layout,
+	 * for fast search, min, max, floor/ceiling and rank queries. Later changes to
+	 * the tree are not seen by the snapshot; call freeze() again to rebuild it.
+	 */
+	// complexity: O(n)
+	public FrozenAVLTree freeze() {
+		return new FrozenAVLTree(this);
+	}
+
+	// recursive helper for copy, copies the subtree of node (recursion depth is the rank)
+	// complexity: O(size of subtree)
+	private static IAVLNode copyNode(IAVLNode node) {
+		if (node.isRealNode() == false) {
+			return virtualNode;
+		}
+
+		IAVLNode res = node instanceof AggregateNode ? ((AggregateNode) node).copy() : new AVLNode(node.getKey(), node.getValue());
+		res.setHeight(node.getHeight());
+		res.setSize(node.getSize());
+		res.setLeft(copyNode(node.getLeft()));
+		res.getLeft().setParent(res);
+		res.setRight(copyNode(node.getRight()));
+		res.getRight().setParent(res);
+		return res;
+	}
+
+	/**
+	 * public IAVLNode select(int i)
+	 *
+	 * Returns the node holding the i-th smallest key in the tree (0-based), or null
+	 * if i is not in [0, size()). select(rank(k)) is the node of k if k is in the tree.
+	 */
+	// uses the subtree sizes to pick a side at each level
+	// complexity: O(logn)
+	public IAVLNode select(int i) {
+		if (i < 0 || i >= this.size) {
+			return null;
+		}
+		ensureSizes();
+
+		IAVLNode node = this.root;
+		while (node.isRealNode()) {
+			int leftSize = node.getLeft().getSize();
+			if (i == leftSize) {
+				return node;
+			}
+			if (i < leftSize) {
+				node = node.getLeft();
+			} else {
+				i -= leftSize + 1;
+				node = node.getRight();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * public int rank(int k)
+	 *
+	 * Returns the number of keys in the tree that are smaller than k. k does not
+	 * have to be in the tree.
+	 */
+	// complexity: O(logn)
+	public int rank(int k) {
+		return countSmaller(k, false);
+	}
+
+	/**
+	 * public int countInRange(int lo, int hi)
+	 *
+	 * Returns the number of keys k in the tree with lo <= k <= hi, or 0 if lo > hi.
+	 */
+	// complexity: O(logn)
+	public int countInRange(int lo, int hi) {
+		if (lo > hi) {
+			return 0;
+		}
+		return countSmaller(hi, true) - countSmaller(lo, false);
+	}
+
+	// counts the keys smaller than k (or equal to k, if inclusive), by a walk down from the root
+	// every time we go right, the left subtree and the node itself are smaller
+	// complexity: O(logn)
+	private int countSmaller(int k, boolean inclusive) {
+		if (empty()) {
+			return 0;
+		}
+		ensureSizes();
+
+		int count = 0;
+		IAVLNode node = this.root;
+		while (node.isRealNode()) {
+			if (k < node.getKey() || (k == node.getKey() && inclusive == false)) {
+				node = node.getLeft();
+			} else {
+				count += node.getLeft().getSize() + 1;
+				if (k == node.getKey()) {
+					return count;
+				}
+				node = node.getRight();
+			}
+		}
+
+		return count;
+	}
+	
+	
+	/**
+	 * public <A> A aggregate(int lo, int hi)
+	 *
+	 * Returns the aggregate of the items with lo <= key <= hi, combined in key
+	 * order, or the identity if there are none. A must be the type of the
+	 * aggregate the tree was made with.
+	 *
+	 * precondition: the tree keeps an aggregate, see AVLTree(AVLTreeAggregate)
+	 */
+	// walks down to the highest node in [lo, hi], then on to lo and to hi: every subtree hanging
+	// inside the range off these two paths is taken whole, from its root`s aggregate
+	// complexity: O(logn)
+	@SuppressWarnings("unchecked") // the caller names the type of the tree`s aggregate
+	public <A> A aggregate(int lo, int hi) {
+		if (this.aggregate == null) {
+			throw new IllegalStateException("the tree keeps no aggregate");
+		}
+		if (lo > hi || empty()) {
+			return (A) this.aggregate.identity();
+		}
+		ensureSizes();
+
+		IAVLNode top = this.root;
+		while (top.isRealNode() && (top.getKey() < lo || top.getKey() > hi)) {
+			top = top.getKey() < lo ? top.getRight() : top.getLeft();
+		}
+		if (top.isRealNode() == false) {
+			return (A) this.aggregate.identity();
+		}
+
+		// the keys >= lo left of top, collected bottom-up, so each part goes in front
+		Object left = this.aggregate.identity();
+		for (IAVLNode node = top.getLeft(); node.isRealNode();) {
+			if (node.getKey() < lo) {
+				node = node.getRight();
+			} else {
+				Object part = this.aggregate.combine(lift(node), valueOf(node.getRight()));
+				left = this.aggregate.combine(part, left);
+				node = node.getLeft();
+			}
+		}
+
+		// the keys <= hi right of top, each part goes behind
+		Object right = this.aggregate.identity();
+		for (IAVLNode node = top.getRight(); node.isRealNode();) {
+			if (node.getKey() > hi) {
+				node = node.getLeft();
+			} else {
+				Object part = this.aggregate.combine(valueOf(node.getLeft()), lift(node));
+				right = this.aggregate.combine(right, part);
+				node = node.getRight();
+			}
+		}
+
+		return (A) this.aggregate.combine(this.aggregate.combine(left, lift(top)), right);
+	}
+
+	/**
+	 * public AVLTreeAggregate<?> getAggregate()
+	 *
+	 * Returns the aggregate the tree keeps, or null if it keeps none.
+	 */
+	// complexity: O(1)
+	public AVLTreeAggregate<?> getAggregate() {
+		return this.aggregate;
+	}
+
+	// replaces the info of node, a node of this tree, and updates the aggregates above it;
+	// used by AVLTreeMap.put and Entry.setValue
+	// complexity: O(logn) if the tree keeps an aggregate, O(1) otherwise
+	void replaceInfo(IAVLNode node, String info) {
+		((AVLNode) node).setInfo(info);
+		if (this.aggregate == null || this.sizesStale) {
+			return;
+		}
+		for (IAVLNode x = node; x != null; x = x.getParent()) {
+			updateAggregate(x);
+		}
+	}
+
+	// returns a new empty tree that keeps the same aggregate, for the trees split and join hand out;
+	// IntervalAVLTree returns another IntervalAVLTree
+	// complexity: O(1)
+	AVLTree newTree() {
+		AVLTree res = new AVLTree();
+		res.aggregate = this.aggregate;
+		return res;
+	}
+
+	// recomputes the aggregate of node from its children, if the tree keeps one
+	// complexity: O(1) calls to the aggregate
+	private void updateAggregate(IAVLNode node) {
+		if (this.aggregate != null) {
+			Object res = this.aggregate.combine(valueOf(node.getLeft()), lift(node));
+			((AggregateNode) node).value = this.aggregate.combine(res, valueOf(node.getRight()));
+		}
+	}
+
+	// returns true iff node is of the kind createNode makes, and can hold the tree`s aggregate
+	boolean canHold(IAVLNode node) {
+		return node instanceof AggregateNode;
+	}
+
+	// the aggregate of the single item of node; IntervalAVLTree lifts the node`s end instead
+	Object lift(IAVLNode node) {
+		return this.aggregate.lift(node.getKey(), node.getValue());
+	}
+
+	// the aggregate kept by node, the identity for the virtual node
+	Object valueOf(IAVLNode node) {
+		return node.isRealNode() ? ((AggregateNode) node).value : this.aggregate.identity();
+	}
+
+	// helper for split, joins sub-trees of the tree to biggerTree/smallerTree, walking up from x to the root, as we saw at class
+	// every ancestor is detached and re-used as the middle node of its join, and one scratch
+	// tree wraps the sibling sub-trees, so nothing is allocated per level
+	// returns the total cost of the joins
+	// complexity: O(logn)
+	private int splitUp(IAVLNode x, AVLTree smaller, AVLTree bigger) {
+		int cost = 0;
+		AVLTree sibling = newTree();
+
+		IAVLNode parent = x.getParent();
+		while (parent != null) {
+			boolean fromLeft = parent.getLeft() == x;
+			IAVLNode next = parent.getParent();
+			IAVLNode subTree = fromLeft ? parent.getRight() : parent.getLeft();
+
+			sibling.root = subTree.isRealNode() ? subTree : null;
+			sibling.size = subTree.getSize();
+			subTree.setParent(null);
+			resetNode(parent);
+
+			if (fromLeft) {
+				cost += bigger.join(parent, sibling);
+			} else {
+				cost += smaller.join(parent, sibling);
+			}
+
+			x = parent;
+			parent = next;
+		}
+
+		return cost;
+	}
+
+	/**
+	 * public AVLTree[] split(int x)
+	 *
+	 * splits the tree into 2 trees according to the key x. Returns an array [t1,
+	 * t2] with two AVL trees. keys(t1) < x < keys(t2). The nodes of the tree are
+	 * re-linked into the two trees, and the tree is left empty.
+	 * 
+	 * precondition: search(x) != null (i.e. you can also assume that the tree is
+	 * not empty) postcondition: empty()
+	 */
+	// complexity: O(logn)
+
+	public AVLTree[] split(int x) {
+		ensureSizes();
+		AVLTree[] result = new AVLTree[2];
+		IAVLNode node = search(this.root, x);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
+
+		AVLTree smaller = newTree();
+		if (node.getLeft().isRealNode()) {
+			smaller.root = node.getLeft();
+			smaller.size = smaller.root.getSize();
+			smaller.root.setParent(null);
+		}
+
+		AVLTree bigger = newTree();
+		if (node.getRight().isRealNode()) {
+			bigger.root = node.getRight();
+			bigger.size = bigger.root.getSize();
+			bigger.root.setParent(null);
+		}
+
+		int cost = splitUp(node, smaller, bigger);
+		this.root = null;
+		this.size = 0;
+		this.finger = null;
+		this.fingerNext = null;
+		if (this.metrics != null) {
+			this.metrics.split(cost);
+		}
+
+		result[0] = smaller;
+		result[1] = bigger;
+		return result;
+	}
+
+	// splits the tree around key k, which does not have to be in the tree
+	// returns [t1, t2] with keys(t1) < k < keys(t2), the node of k (if any) is in neither
+	// the last node on the search path of k is its neighbour, so we split there and add it back
+	// complexity: O(logn)
+	private AVLTree[] splitAt(int k) {
+		if (empty()) {
+			return new AVLTree[] { newTree(), newTree() };
+		}
+
+		IAVLNode pos = treePosition(k);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
+		AVLTree[] result = split(pos.getKey());
+		if (pos.getKey() < k) {
+			result[0].join(resetNode(pos), new AVLTree());
+		} else if (pos.getKey() > k) {
+			result[1].join(resetNode(pos), new AVLTree());
+		}
+		return result;
+	}
+	
+	
+
+	// fixes nodes size after join; aggregates need no fixing here, the walks of insertChild
+	// recomputed them from the children, which the joined subtrees bring along
+	// complexity: O(|T1.rank - T2.rank| + 1)
+	private void fixSize(IAVLNode node) {
+		IAVLNode parent = node.getParent();
+		int length = 0;
+		while (parent != null) {
 			parent.setSize(parent.getLeft().getSize() + parent.getRight().getSize() + 1);
 			parent = parent.getParent();
+			length++;
+		}
+		if (this.metrics != null) {
+			this.metrics.sizeWalk(length);
 		}
 	}
 
@@ -857,6 +1650,7 @@ public class AVLTree {
 		insertChild(x, T2.getRoot());
 
 		x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
+		updateAggregate(x);
 		x.setHeight(Math.max(T1.getRoot().getHeight() + 1, T2.getRoot().getHeight() + 1));
 		this.root = x;
 		this.size = T1.size + T2.size() + 1;
@@ -888,6 +1682,7 @@ public class AVLTree {
 
 		insertRebalance(x);
 		x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
+		updateAggregate(x);
 		fixSize(x);
 
 		return res;
@@ -918,6 +1713,7 @@ public class AVLTree {
 
 		insertRebalance(x);
 		x.setSize(x.getLeft().getSize() + x.getRight().getSize() + 1);
+		updateAggregate(x);
 		fixSize(x);
 
 		return res;
@@ -943,6 +1739,19 @@ public class AVLTree {
 		}
 	}
 	
+	// joins x with the tree when the other tree is empty: x becomes the new min or max leaf,
+	// re-linked in place (keys(tree) < x or x < keys(tree)), returns the cost as join does
+	// complexity: O(logn)
+	private int attachEdge(IAVLNode x) {
+		IAVLNode pos = x.getKey() < this.root.getKey() ? minNode(this.root) : maxNode(this.root);
+
+		insertChild(pos, resetNode(x));
+		this.size++;
+		insertRebalance(x);
+
+		return this.root.getHeight() + 1;
+	}
+
 	// finds the appro. place to join the trees (c from the graph we saw at class)
 	// complexity: O(|node.rank - k| + 1) = O(|T1.rank - T2.rank| + 1)
 	private IAVLNode posToJoin(IAVLNode node, int k, Boolean isLeft) {
@@ -968,31 +1777,57 @@ public class AVLTree {
 	 *
 	 * precondition: keys(t) < x < keys() or keys(t) > x > keys(). t/tree might be
 	 * empty (rank = -1). postcondition: none
+	 *
+	 * If the tree keeps an aggregate, a non-empty t must keep the same one, and an
+	 * x that was not made by such a tree is linked in as a new node with its key
+	 * and info.
 	 */
 	// complexity: O(|tree.rank - t.rank| + 1)
 
 	public int join(IAVLNode x, AVLTree t) {
+		if (t.empty() == false && t.aggregate != this.aggregate) {
+			throw new IllegalArgumentException("t must keep the same aggregate as the tree");
+		}
+		ensureSizes();
+		t.ensureSizes();
+		// the finger stays, but the keys of t may come right after it
+		this.fingerNext = null;
+		int cost = joinTrees(x, t);
+		if (this.metrics != null) {
+			this.metrics.join(cost);
+		}
+		return cost;
+	}
+
+	// joins t and x with the tree, the body of join
+	// complexity: O(|tree.rank - t.rank| + 1)
+	private int joinTrees(IAVLNode x, AVLTree t) {
 		if (x.isRealNode() == false) {
 			return 0;
 		}
+		// a node without room for the aggregate is replaced by one with it
+		if (this.aggregate != null && canHold(x) == false) {
+			x = createNode(x.getKey(), x.getValue());
+		}
 
-		// t or tree are empty
+		// t or tree are empty: x itself is linked in, no copy of it is made
 		if (t.empty() && empty()) {
-			this.root = x;
+			this.root = resetNode(x);
 			this.size = 1;
 			return 1;
 		}
 		if (t.empty()) {
-			insert(x.getKey(), x.getValue());
-			return this.getRoot().getHeight() + 1;
+			return attachEdge(x);
 		}
 		if (empty()) {
-			t.insert(x.getKey(), x.getValue());
+			int ret = t.attachEdge(x);
 			this.root = t.getRoot();
 			this.size = t.size();
-			return t.getRoot().getHeight() + 1;
+			return ret;
 		}
 
+		// x may come from another tree, e.g. the node split was called on, so its old links go
+		resetNode(x);
 		int ret = 0;
 
 		if (t.getRoot().getKey() < this.root.getKey()) {
@@ -1006,6 +1841,416 @@ public class AVLTree {
 
 	
 
+	/**
+	 * public AVLTree subTree(int lo, int hi)
+	 *
+	 * Removes the items with lo <= key <= hi from the tree and returns them as a
+	 * new tree; the tree keeps the rest. Returns an empty tree if lo > hi.
+	 */
+	// two splits and two joins, the nodes are re-linked, not copied
+	// complexity: O(logn)
+	public AVLTree subTree(int lo, int hi) {
+		if (lo > hi || empty()) {
+			return newTree();
+		}
+		ensureSizes();
+
+		IAVLNode loNode = search(this.root, lo);
+		if (this.metrics != null) {
+			this.metrics.endPath();
+		}
+		IAVLNode hiNode = null;
+		if (lo != hi) {
+			hiNode = search(this.root, hi);
+			if (this.metrics != null) {
+				this.metrics.endPath();
+			}
+		}
+
+		AVLTree[] outer = splitAt(lo);
+		AVLTree middle = newTree();
+		AVLTree right = outer[1];
+		if (lo != hi) {
+			AVLTree[] inner = outer[1].splitAt(hi);
+			middle = inner[0];
+			right = inner[1];
+		}
+
+		// lo and hi themselves were left out by the splits
+		if (loNode != null) {
+			middle.join(resetNode(loNode), new AVLTree());
+		}
+		if (hiNode != null) {
+			middle.join(resetNode(hiNode), new AVLTree());
+		}
+
+		AVLTree rest = concat(outer[0], right);
+		this.finger = null;
+		this.fingerNext = null;
+		this.root = rest.getRoot();
+		this.size = rest.size();
+		return middle;
+	}
+
+	// detaches node from its old tree, so it can be re-used as the middle node of join
+	// complexity: O(1)
+	private IAVLNode resetNode(IAVLNode node) {
+		node.setLeft(virtualNode);
+		node.setRight(virtualNode);
+		node.setParent(null);
+		node.setHeight(0);
+		node.setSize(1);
+		updateAggregate(node);
+		return node;
+	}
+
+	/**
+	 * public int insertAll(int[] keys, String[] infos)
+	 *
+	 * Inserts the items (keys[i], infos[i]) to the tree. As with insert, a key that
+	 * already exists in the tree keeps its info, and within the batch the first
+	 * occurrence of a key wins. Returns the number of items actually inserted.
+	 */
+	// sorts the batch, then splits the tree around the middle key of the batch, inserts each half
+	// of the batch into the matching part recursively and joins the parts back
+	// complexity: O(m logm + m log(n/m + 1)) for a batch of m keys
+	public int insertAll(int[] keys, String[] infos) {
+		if (keys.length != infos.length) {
+			throw new IllegalArgumentException("keys and infos must have the same length");
+		}
+
+		// sort (key, index) pairs, so equal keys keep their batch order
+		long[] order = new long[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			order[i] = ((long) keys[i] << 32) | i;
+		}
+		Arrays.sort(order);
+
+		int[] sortedKeys = new int[keys.length];
+		String[] sortedInfos = new String[keys.length];
+		int m = 0;
+		for (long pair : order) {
+			int key = (int) (pair >> 32);
+			if (m > 0 && sortedKeys[m - 1] == key) {
+				continue;
+			}
+			sortedKeys[m] = key;
+			sortedInfos[m] = infos[(int) pair];
+			m++;
+		}
+
+		ensureSizes();
+		int oldSize = this.size;
+		AVLTree res = insertSorted(this, sortedKeys, sortedInfos, 0, m - 1);
+		this.finger = null;
+		this.fingerNext = null;
+		this.root = res.getRoot();
+		this.size = res.size();
+		return this.size - oldSize;
+	}
+
+	// inserts the sorted, distinct keys[lo..hi] into t, returns the resulting tree (t is consumed)
+	// complexity: O((hi - lo + 1) log(n/(hi - lo + 1) + 1))
+	private AVLTree insertSorted(AVLTree t, int[] keys, String[] infos, int lo, int hi) {
+		if (lo > hi) {
+			return t;
+		}
+		if (t.empty()) {
+			AVLTree res = newTree();
+			res.root = BulkBuild.build(keys, infos, lo, hi, this);
+			res.size = hi - lo + 1;
+			return res;
+		}
+
+		int mid = (lo + hi) >>> 1;
+		IAVLNode existing = t.search(t.getRoot(), keys[mid]);
+		if (t.metrics != null) {
+			t.metrics.endPath();
+		}
+		AVLTree[] parts = t.splitAt(keys[mid]);
+
+		AVLTree smaller = insertSorted(parts[0], keys, infos, lo, mid - 1);
+		AVLTree bigger = insertSorted(parts[1], keys, infos, mid + 1, hi);
+
+		IAVLNode x = existing != null ? resetNode(existing) : createNode(keys[mid], infos[mid]);
+		smaller.join(x, bigger);
+		return smaller;
+	}
+
+	/**
+	 * public int deleteAll(int[] keys)
+	 *
+	 * Deletes the items with the given keys from the tree, keys that are not in the
+	 * tree are ignored. Returns the number of items actually deleted.
+	 */
+	// sorts the batch, then splits the tree around the middle key of the batch, deletes each half
+	// of the batch from the matching part recursively and joins the parts back
+	// complexity: O(m logm + m log(n/m + 1)) for a batch of m keys
+	public int deleteAll(int[] keys) {
+		int[] sortedKeys = keys.clone();
+		Arrays.sort(sortedKeys);
+
+		ensureSizes();
+		int oldSize = this.size;
+		AVLTree res = deleteSorted(this, sortedKeys, 0, sortedKeys.length - 1);
+		this.finger = null;
+		this.fingerNext = null;
+		this.root = res.getRoot();
+		this.size = res.size();
+		return oldSize - this.size;
+	}
+
+	// deletes the sorted keys[lo..hi] from t, returns the resulting tree (t is consumed)
+	// complexity: O((hi - lo + 1) log(n/(hi - lo + 1) + 1))
+	private AVLTree deleteSorted(AVLTree t, int[] keys, int lo, int hi) {
+		if (lo > hi || t.empty()) {
+			return t;
+		}
+
+		int mid = (lo + hi) >>> 1;
+		AVLTree[] parts = t.splitAt(keys[mid]);
+
+		AVLTree smaller = deleteSorted(parts[0], keys, lo, mid - 1);
+		AVLTree bigger = deleteSorted(parts[1], keys, mid + 1, hi);
+		return concat(smaller, bigger);
+	}
+
+	// joins two trees with keys(smaller) < keys(bigger) and no middle node,
+	// the max node of smaller is taken out and used as the middle node
+	// complexity: O(logn)
+	private AVLTree concat(AVLTree smaller, AVLTree bigger) {
+		if (smaller.empty()) {
+			return bigger;
+		}
+		if (bigger.empty()) {
+			return smaller;
+		}
+
+		IAVLNode x = maxNode(smaller.getRoot());
+		smaller.delete(x.getKey());
+		smaller.join(resetNode(x), bigger);
+		return smaller;
+	}
+
+	// builds the subtree of keys[lo..hi] around the middle key, as a fork-join task
+	// both halves differ in size by at most 1, so their ranks differ by at most 1
+	@SuppressWarnings("serial") // a fork/join task, never serialized
+	private static class BulkBuild extends RecursiveTask<IAVLNode> {
+		// below this many keys a subtree is built on the calling thread
+		static final int PARALLEL_THRESHOLD = 1 << 14;
+
+		private final int[] keys;
+		private final String[] infos;
+		private final int lo;
+		private final int hi;
+		private final AVLTree owner; // the tree the nodes are built for, it makes them
+
+		BulkBuild(int[] keys, String[] infos, int lo, int hi, AVLTree owner) {
+			this.keys = keys;
+			this.infos = infos;
+			this.lo = lo;
+			this.hi = hi;
+			this.owner = owner;
+		}
+
+		@Override
+		protected IAVLNode compute() {
+			if (this.hi - this.lo + 1 < PARALLEL_THRESHOLD) {
+				return build(this.keys, this.infos, this.lo, this.hi, this.owner);
+			}
+
+			int mid = (this.lo + this.hi) >>> 1;
+			BulkBuild leftTask = new BulkBuild(this.keys, this.infos, this.lo, mid - 1, this.owner);
+			leftTask.fork();
+			IAVLNode right = new BulkBuild(this.keys, this.infos, mid + 1, this.hi, this.owner).compute();
+			return link(this.keys, this.infos, mid, leftTask.join(), right, this.owner);
+		}
+
+		// sequential build of keys[lo..hi], returns virtualNode for an empty range
+		// complexity: O(hi - lo + 1)
+		static IAVLNode build(int[] keys, String[] infos, int lo, int hi, AVLTree owner) {
+			if (lo > hi) {
+				return virtualNode;
+			}
+
+			int mid = (lo + hi) >>> 1;
+			return link(keys, infos, mid, build(keys, infos, lo, mid - 1, owner), build(keys, infos, mid + 1, hi, owner),
+					owner);
+		}
+
+		// makes the node of keys[mid] with the given subtrees, sets its rank and size (and aggregate,
+		// if there is one)
+		// complexity: O(1)
+		static IAVLNode link(int[] keys, String[] infos, int mid, IAVLNode left, IAVLNode right, AVLTree owner) {
+			IAVLNode node = owner.createNode(keys[mid], infos[mid]);
+			node.setLeft(left);
+			node.setRight(right);
+			left.setParent(node);
+			right.setParent(node);
+			node.setHeight(Math.max(left.getHeight(), right.getHeight()) + 1);
+			node.setSize(left.getSize() + right.getSize() + 1);
+			owner.updateAggregate(node);
+			return node;
+		}
+	}
+
+	/**
+	 *
+	 * static class AggregateNode
+	 *
+	 * The node of a tree that keeps an aggregate: an AVLNode that also holds the
+	 * aggregate of its subtree, so trees without one pay nothing for it.
+	 */
+	static class AggregateNode extends AVLNode {
+		Object value;
+
+		AggregateNode(int key, String info) {
+			super(key, info);
+		}
+
+		// returns a detached copy of the node with the same item and aggregate, used by copy
+		// complexity: O(1)
+		AggregateNode copy() {
+			AggregateNode res = new AggregateNode(this.key, this.info);
+			res.value = this.value;
+			return res;
+		}
+	}
+
+	/**
+	 * public void disableSizeTracking()
+	 *
+	 * Stops maintaining subtree sizes, and aggregates if the tree keeps one:
+	 * insert, delete and rotations no longer walk to the root to update them.
+	 * size() stays exact. The first operation that needs subtree sizes (select,
+	 * rank, countInRange, aggregate, split, join, subTree, insertAll, deleteAll,
+	 * nodeToArray) rebuilds them in O(n) and turns tracking back on, so workloads
+	 * that never use them pay nothing.
+	 */
+	// complexity: O(1)
+	public void disableSizeTracking() {
+		this.sizesStale = true;
+	}
+
+	/**
+	 * public void enableSizeTracking()
+	 *
+	 * Rebuilds the subtree sizes if they are stale and maintains them again from
+	 * now on. Does nothing if sizes are already tracked.
+	 */
+	// complexity: O(n) if the sizes are stale, O(1) otherwise
+	public void enableSizeTracking() {
+		ensureSizes();
+	}
+
+	/**
+	 * public boolean isSizeTracking()
+	 *
+	 * Returns true iff subtree sizes are currently maintained.
+	 */
+	// complexity: O(1)
+	public boolean isSizeTracking() {
+		return this.sizesStale == false;
+	}
+
+	// rebuilds the stale subtree sizes before an operation that reads them, and resumes maintaining them
+	// complexity: O(n) if the sizes are stale, O(1) otherwise
+	void ensureSizes() {
+		if (this.sizesStale == false) {
+			return;
+		}
+		if (this.root != null) {
+			recomputeSize(this.root);
+		}
+		this.sizesStale = false;
+	}
+
+	// recursive helper for ensureSizes, sets the size (and aggregate) of every node in the subtree
+	// of node, post-order (recursion depth is the rank), returns the size of the subtree
+	// complexity: O(size of subtree)
+	private int recomputeSize(IAVLNode node) {
+		if (node.isRealNode() == false) {
+			return 0;
+		}
+
+		int size = recomputeSize(node.getLeft()) + recomputeSize(node.getRight()) + 1;
+		node.setSize(size);
+		updateAggregate(node);
+		return size;
+	}
+
+	/**
+	 * public AVLTreeMetrics enableMetrics()
+	 *
+	 * Starts recording rotations, promotions/demotions, path lengths, size walks and
+	 * split/join costs of this tree, and returns the metrics (see
+	 * AVLTreeMetrics.register for JMX). Returns the existing metrics if already enabled.
+	 */
+	// complexity: O(1)
+	public AVLTreeMetrics enableMetrics() {
+		if (this.metrics == null) {
+			this.metrics = new AVLTreeMetrics();
+		}
+		return this.metrics;
+	}
+
+	/**
+	 * public void disableMetrics()
+	 *
+	 * Stops recording metrics, the tree goes back to paying a null-check only.
+	 */
+	// complexity: O(1)
+	public void disableMetrics() {
+		this.metrics = null;
+	}
+
+	/**
+	 * public AVLTreeMetrics getMetrics()
+	 *
+	 * Returns the metrics of this tree, or null if they are not enabled.
+	 */
+	// complexity: O(1)
+	public AVLTreeMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * public AVLNodePool enableNodePool(int capacity)
+	 *
+	 * Starts recycling nodes: nodes deleted from the tree are kept (up to capacity)
+	 * and re-used by later inserts. Returns the pool, for its hit-rate statistics.
+	 * A node returned by select or getRoot must not be used after its key was deleted.
+	 * Not available on a tree that keeps an aggregate.
+	 */
+	// complexity: O(capacity)
+	public AVLNodePool enableNodePool(int capacity) {
+		if (this.aggregate != null) {
+			throw new IllegalStateException("a tree that keeps an aggregate has no node pool");
+		}
+		this.pool = new AVLNodePool(capacity);
+		return this.pool;
+	}
+
+	/**
+	 * public void disableNodePool()
+	 *
+	 * Stops recycling nodes, pooled nodes are left to the garbage collector.
+	 */
+	// complexity: O(1)
+	public void disableNodePool() {
+		this.pool = null;
+	}
+
+	/**
+	 * public AVLNodePool getNodePool()
+	 *
+	 * Returns the node pool of this tree, or null if it is not enabled.
+	 */
+	// complexity: O(1)
+	public AVLNodePool getNodePool() {
+		return this.pool;
+	}
+
 	/**
 	 * public int getRoot()
 	 *
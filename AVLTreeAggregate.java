@@ -0,0 +1,94 @@
+
+/**
+ *
+ *
+ * AVLTreeAggregate
+ *
+ * A monoid over the items of an AVLTree, see AVLTree(AVLTreeAggregate) and
+ * AVLTree.aggregate(lo, hi). Every node keeps the aggregate of its subtree,
+ * combine(combine(left subtree, lift(node)), right subtree), so combine must be
+ * associative and identity must be neutral for it; it does not have to be
+ * commutative, items are always combined in key order.
+ *
+ */
+
+public interface AVLTreeAggregate<A> {
+	public A identity(); // the aggregate of no items
+
+	public A lift(int key, String info); // the aggregate of the single item (key, info)
+
+	public A combine(A left, A right); // the aggregate of left's items followed by right's
+
+	/**
+	 * public static AVLTreeAggregate<Integer> count()
+	 *
+	 * Counts the items, e.g. for tests; AVLTree.countInRange answers the same
+	 * from the subtree sizes every tree keeps.
+	 */
+	public static AVLTreeAggregate<Integer> count() {
+		return new AVLTreeAggregate<Integer>() {
+			@Override
+			public Integer identity() {
+				return 0;
+			}
+
+			@Override
+			public Integer lift(int key, String info) {
+				return 1;
+			}
+
+			@Override
+			public Integer combine(Integer left, Integer right) {
+				return left + right;
+			}
+		};
+	}
+
+	/**
+	 * public static AVLTreeAggregate<Long> keySum()
+	 *
+	 * Sums the keys.
+	 */
+	public static AVLTreeAggregate<Long> keySum() {
+		return new AVLTreeAggregate<Long>() {
+			@Override
+			public Long identity() {
+				return 0L;
+			}
+
+			@Override
+			public Long lift(int key, String info) {
+				return (long) key;
+			}
+
+			@Override
+			public Long combine(Long left, Long right) {
+				return left + right;
+			}
+		};
+	}
+
+	/**
+	 * public static AVLTreeAggregate<Integer> maxInfoLength()
+	 *
+	 * The length of the longest info, null infos counting as 0; 0 for no items.
+	 */
+	public static AVLTreeAggregate<Integer> maxInfoLength() {
+		return new AVLTreeAggregate<Integer>() {
+			@Override
+			public Integer identity() {
+				return 0;
+			}
+
+			@Override
+			public Integer lift(int key, String info) {
+				return info == null ? 0 : info.length();
+			}
+
+			@Override
+			public Integer combine(Integer left, Integer right) {
+				return Math.max(left, right);
+			}
+		};
+	}
+}
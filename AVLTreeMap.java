@@ -0,0 +1,710 @@
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ *
+ *
+ * AVLTreeMap
+ *
+ * A NavigableMap<Integer, String> backed by an AVLTree, for code written against
+ * java.util.TreeMap. Every view (subMap, headMap, tailMap, descendingMap, the
+ * key and entry sets) is live and reads and writes the same tree; none of them
+ * copies it. Views know their size in O(logn), from the tree's subtree sizes.
+ *
+ * Null keys are not allowed, null values are. Like AVLTree, the map is not
+ * thread-safe, and its iterators are not fail-fast: the map must only be
+ * changed through the iterator while iterating.
+ *
+ */
+
+public class AVLTreeMap extends AbstractMap<Integer, String> implements NavigableMap<Integer, String> {
+
+	// fields of AVLTreeMap: the tree, and the view`s bounds as in TreeMap`s sub maps: a key and
+	// whether it is in the view for each side, unless the view is open on that side (fromStart, toEnd)
+	private final AVLTree tree;
+	private final boolean fromStart;
+	private final int lo;
+	private final boolean loInclusive;
+	private final boolean toEnd;
+	private final int hi;
+	private final boolean hiInclusive;
+	private final boolean descending;
+
+	// empty map-constructor
+	public AVLTreeMap() {
+		this(new AVLTree());
+	}
+
+	// map-constructor over an existing tree, which the map reads and writes
+	public AVLTreeMap(AVLTree tree) {
+		this(tree, true, 0, true, true, 0, true, false);
+	}
+
+	// view-constructor, lo and hi are in key order whatever the direction
+	private AVLTreeMap(AVLTree tree, boolean fromStart, int lo, boolean loInclusive, boolean toEnd, int hi,
+			boolean hiInclusive, boolean descending) {
+		if (fromStart == false && toEnd == false && lo > hi) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		this.tree = tree;
+		this.fromStart = fromStart;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.toEnd = toEnd;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.descending = descending;
+	}
+
+	/**
+	 * public AVLTree getTree()
+	 *
+	 * Returns the tree behind the map.
+	 */
+	// complexity: O(1)
+	public AVLTree getTree() {
+		return this.tree;
+	}
+
+	// returns true iff k is below the view
+	// complexity: O(1)
+	private boolean tooLow(int k) {
+		return this.fromStart == false && (k < this.lo || (k == this.lo && this.loInclusive == false));
+	}
+
+	// returns true iff k is above the view
+	// complexity: O(1)
+	private boolean tooHigh(int k) {
+		return this.toEnd == false && (k > this.hi || (k == this.hi && this.hiInclusive == false));
+	}
+
+	// returns true iff k is inside the view
+	// complexity: O(1)
+	private boolean inRange(int k) {
+		return tooLow(k) == false && tooHigh(k) == false;
+	}
+
+	// returns true iff k is inside the view with both of its bounds taken as inclusive
+	// complexity: O(1)
+	private boolean inClosedRange(int k) {
+		return (this.fromStart || k >= this.lo) && (this.toEnd || k <= this.hi);
+	}
+
+	// returns true iff k can bound a view inside this one: an inclusive bound must be in the view,
+	// an exclusive one may also be on one of the view`s own bounds
+	// complexity: O(1)
+	private boolean inRange(int k, boolean inclusive) {
+		return inclusive ? inRange(k) : inClosedRange(k);
+	}
+
+	// returns the smallest key in the view, as a long so an empty view can give lowKey() > highKey()
+	// complexity: O(1)
+	private long lowKey() {
+		if (this.fromStart) {
+			return Integer.MIN_VALUE;
+		}
+		return this.loInclusive ? this.lo : this.lo + 1L;
+	}
+
+	// returns the largest key in the view, see lowKey()
+	// complexity: O(1)
+	private long highKey() {
+		if (this.toEnd) {
+			return Integer.MAX_VALUE;
+		}
+		return this.hiInclusive ? this.hi : this.hi - 1L;
+	}
+
+	// returns the node of key, or null if it is not in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode node(Object key) {
+		int k = (Integer) Objects.requireNonNull(key);
+		if (inRange(k) == false) {
+			return null;
+		}
+		AVLTree.IAVLNode node = this.tree.ceiling(k);
+		return node != null && node.getKey() == k ? node : null;
+	}
+
+	// returns node if it is inside the view, otherwise null
+	// complexity: O(1)
+	private AVLTree.IAVLNode inView(AVLTree.IAVLNode node) {
+		return node != null && inRange(node.getKey()) ? node : null;
+	}
+
+	// the navigation below is in key order, regardless of the view`s direction
+
+	// returns the node with the smallest key in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode absLowest() {
+		if (this.fromStart) {
+			return inView(this.tree.ceiling(Integer.MIN_VALUE));
+		}
+		return inView(this.loInclusive ? this.tree.ceiling(this.lo) : this.tree.higher(this.lo));
+	}
+
+	// returns the node with the largest key in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode absHighest() {
+		if (this.toEnd) {
+			return inView(this.tree.floor(Integer.MAX_VALUE));
+		}
+		return inView(this.hiInclusive ? this.tree.floor(this.hi) : this.tree.lower(this.hi));
+	}
+
+	// returns the node with the smallest key >= k in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode absCeiling(int k) {
+		return tooLow(k) ? absLowest() : inView(this.tree.ceiling(k));
+	}
+
+	// returns the node with the smallest key > k in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode absHigher(int k) {
+		return tooLow(k) ? absLowest() : inView(this.tree.higher(k));
+	}
+
+	// returns the node with the largest key <= k in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode absFloor(int k) {
+		return tooHigh(k) ? absHighest() : inView(this.tree.floor(k));
+	}
+
+	// returns the node with the largest key < k in the view
+	// complexity: O(logn)
+	private AVLTree.IAVLNode absLower(int k) {
+		return tooHigh(k) ? absHighest() : inView(this.tree.lower(k));
+	}
+
+	// the same navigation, in the view`s direction
+
+	// returns the first node of the view, in its direction
+	private AVLTree.IAVLNode first() {
+		return this.descending ? absHighest() : absLowest();
+	}
+
+	// returns the last node of the view, in its direction
+	private AVLTree.IAVLNode last() {
+		return this.descending ? absLowest() : absHighest();
+	}
+
+	// returns the node after node in the view`s direction, or null at the end of the view
+	// complexity: O(logn), O(1) amortized over a full walk
+	private AVLTree.IAVLNode next(AVLTree.IAVLNode node) {
+		return inView(this.descending ? this.tree.predecessor(node) : this.tree.successor(node));
+	}
+
+	// returns an immutable snapshot of node as an entry, or null for null
+	private static Map.Entry<Integer, String> export(AVLTree.IAVLNode node) {
+		return node == null ? null : new AbstractMap.SimpleImmutableEntry<>(node.getKey(), node.getValue());
+	}
+
+	// returns the key of node, or null for null
+	private static Integer keyOrNull(AVLTree.IAVLNode node) {
+		return node == null ? null : node.getKey();
+	}
+
+	// returns the key of node, throws NoSuchElementException for null
+	private static Integer keyOrThrow(AVLTree.IAVLNode node) {
+		if (node == null) {
+			throw new NoSuchElementException();
+		}
+		return node.getKey();
+	}
+
+	// removes node from the tree and returns its snapshot
+	// complexity: O(logn)
+	private Map.Entry<Integer, String> poll(AVLTree.IAVLNode node) {
+		Map.Entry<Integer, String> res = export(node);
+		if (node != null) {
+			this.tree.delete(node.getKey());
+		}
+		return res;
+	}
+
+	@Override
+	public int size() {
+		return lowKey() > highKey() ? 0 : this.tree.countInRange((int) lowKey(), (int) highKey());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return absLowest() == null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return node(key) != null;
+	}
+
+	@Override
+	public String get(Object key) {
+		AVLTree.IAVLNode node = node(key);
+		return node == null ? null : node.getValue();
+	}
+
+	@Override
+	public String put(Integer key, String value) {
+		if (inRange(key) == false) {
+			throw new IllegalArgumentException("key out of range");
+		}
+
+		AVLTree.IAVLNode node = node(key);
+		if (node == null) {
+			this.tree.insert(key, value);
+			return null;
+		}
+		String old = node.getValue();
+		this.tree.replaceInfo(node, value);
+		return old;
+	}
+
+	@Override
+	public String remove(Object key) {
+		AVLTree.IAVLNode node = node(key);
+		if (node == null) {
+			return null;
+		}
+		String old = node.getValue();
+		this.tree.delete(node.getKey());
+		return old;
+	}
+
+	// removes the view`s keys from the tree with two splits and a join
+	// complexity: O(logn)
+	@Override
+	public void clear() {
+		if (lowKey() <= highKey()) {
+			this.tree.subTree((int) lowKey(), (int) highKey());
+		}
+	}
+
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return this.descending ? Collections.reverseOrder() : null;
+	}
+
+	@Override
+	public Integer firstKey() {
+		return keyOrThrow(first());
+	}
+
+	@Override
+	public Integer lastKey() {
+		return keyOrThrow(last());
+	}
+
+	@Override
+	public Map.Entry<Integer, String> firstEntry() {
+		return export(first());
+	}
+
+	@Override
+	public Map.Entry<Integer, String> lastEntry() {
+		return export(last());
+	}
+
+	@Override
+	public Map.Entry<Integer, String> pollFirstEntry() {
+		return poll(first());
+	}
+
+	@Override
+	public Map.Entry<Integer, String> pollLastEntry() {
+		return poll(last());
+	}
+
+	@Override
+	public Map.Entry<Integer, String> lowerEntry(Integer key) {
+		return export(this.descending ? absHigher(key) : absLower(key));
+	}
+
+	@Override
+	public Integer lowerKey(Integer key) {
+		return keyOrNull(this.descending ? absHigher(key) : absLower(key));
+	}
+
+	@Override
+	public Map.Entry<Integer, String> floorEntry(Integer key) {
+		return export(this.descending ? absCeiling(key) : absFloor(key));
+	}
+
+	@Override
+	public Integer floorKey(Integer key) {
+		return keyOrNull(this.descending ? absCeiling(key) : absFloor(key));
+	}
+
+	@Override
+	public Map.Entry<Integer, String> ceilingEntry(Integer key) {
+		return export(this.descending ? absFloor(key) : absCeiling(key));
+	}
+
+	@Override
+	public Integer ceilingKey(Integer key) {
+		return keyOrNull(this.descending ? absFloor(key) : absCeiling(key));
+	}
+
+	@Override
+	public Map.Entry<Integer, String> higherEntry(Integer key) {
+		return export(this.descending ? absLower(key) : absHigher(key));
+	}
+
+	@Override
+	public Integer higherKey(Integer key) {
+		return keyOrNull(this.descending ? absLower(key) : absHigher(key));
+	}
+
+	// the views of a view check their bounds as TreeMap`s sub maps do: an inclusive bound must be
+	// inside this view, an exclusive one may also be on this view`s own bound
+
+	@Override
+	public NavigableMap<Integer, String> subMap(Integer fromKey, boolean fromInclusive, Integer toKey,
+			boolean toInclusive) {
+		if (inRange(fromKey, fromInclusive) == false) {
+			throw new IllegalArgumentException("fromKey out of range");
+		}
+		if (inRange(toKey, toInclusive) == false) {
+			throw new IllegalArgumentException("toKey out of range");
+		}
+		if (this.descending) {
+			return new AVLTreeMap(this.tree, false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+		}
+		return new AVLTreeMap(this.tree, false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+	}
+
+	@Override
+	public NavigableMap<Integer, String> headMap(Integer toKey, boolean inclusive) {
+		if (inRange(toKey, inclusive) == false) {
+			throw new IllegalArgumentException("toKey out of range");
+		}
+		if (this.descending) {
+			return new AVLTreeMap(this.tree, false, toKey, inclusive, this.toEnd, this.hi, this.hiInclusive, true);
+		}
+		return new AVLTreeMap(this.tree, this.fromStart, this.lo, this.loInclusive, false, toKey, inclusive, false);
+	}
+
+	@Override
+	public NavigableMap<Integer, String> tailMap(Integer fromKey, boolean inclusive) {
+		if (inRange(fromKey, inclusive) == false) {
+			throw new IllegalArgumentException("fromKey out of range");
+		}
+		if (this.descending) {
+			return new AVLTreeMap(this.tree, this.fromStart, this.lo, this.loInclusive, false, fromKey, inclusive, true);
+		}
+		return new AVLTreeMap(this.tree, false, fromKey, inclusive, this.toEnd, this.hi, this.hiInclusive, false);
+	}
+
+	@Override
+	public SortedMap<Integer, String> subMap(Integer fromKey, Integer toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<Integer, String> headMap(Integer toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<Integer, String> tailMap(Integer fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	@Override
+	public NavigableMap<Integer, String> descendingMap() {
+		return new AVLTreeMap(this.tree, this.fromStart, this.lo, this.loInclusive, this.toEnd, this.hi,
+				this.hiInclusive, this.descending == false);
+	}
+
+	@Override
+	public NavigableSet<Integer> navigableKeySet() {
+		return new KeySet(this);
+	}
+
+	@Override
+	public Set<Integer> keySet() {
+		return navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<Integer> descendingKeySet() {
+		return new KeySet((AVLTreeMap) descendingMap());
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, String>> entrySet() {
+		return new EntrySet();
+	}
+
+	// lazy walk over the nodes of the view, in its direction, remove() deletes from the tree
+	private abstract class NodeIterator<T> implements Iterator<T> {
+		private AVLTree.IAVLNode next = first();
+		private AVLTree.IAVLNode lastReturned = null;
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		// returns the next node and moves on
+		AVLTree.IAVLNode nextNode() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			this.lastReturned = this.next;
+			this.next = AVLTreeMap.this.next(this.next);
+			return this.lastReturned;
+		}
+
+		// deleting re-links nodes but keeps them, so next stays valid
+		@Override
+		public void remove() {
+			if (this.lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			AVLTreeMap.this.tree.delete(this.lastReturned.getKey());
+			this.lastReturned = null;
+		}
+	}
+
+	// live entry of a node, setValue writes through to the tree
+	private static final class NodeEntry implements Map.Entry<Integer, String> {
+		private final AVLTree tree;
+		private final AVLTree.IAVLNode node;
+
+		NodeEntry(AVLTree tree, AVLTree.IAVLNode node) {
+			this.tree = tree;
+			this.node = node;
+		}
+
+		@Override
+		public Integer getKey() {
+			return this.node.getKey();
+		}
+
+		@Override
+		public String getValue() {
+			return this.node.getValue();
+		}
+
+		@Override
+		public String setValue(String value) {
+			String old = this.node.getValue();
+			this.tree.replaceInfo(this.node, value);
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o instanceof Map.Entry == false) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+	// entry set of the view
+	private final class EntrySet extends AbstractSet<Map.Entry<Integer, String>> {
+		@Override
+		public Iterator<Map.Entry<Integer, String>> iterator() {
+			return new NodeIterator<Map.Entry<Integer, String>>() {
+				@Override
+				public Map.Entry<Integer, String> next() {
+					return new NodeEntry(AVLTreeMap.this.tree, nextNode());
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return AVLTreeMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (o instanceof Map.Entry == false) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			if (e.getKey() instanceof Integer == false) {
+				return false;
+			}
+			AVLTree.IAVLNode node = node(e.getKey());
+			return node != null && Objects.equals(node.getValue(), e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (contains(o) == false) {
+				return false;
+			}
+			AVLTreeMap.this.tree.delete((Integer) ((Map.Entry<?, ?>) o).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			AVLTreeMap.this.clear();
+		}
+	}
+
+	// key set of a view, every operation is delegated to the view
+	private static final class KeySet extends AbstractSet<Integer> implements NavigableSet<Integer> {
+		private final AVLTreeMap map;
+
+		KeySet(AVLTreeMap map) {
+			this.map = map;
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return this.map.new NodeIterator<Integer>() {
+				@Override
+				public Integer next() {
+					return nextNode().getKey();
+				}
+			};
+		}
+
+		@Override
+		public Iterator<Integer> descendingIterator() {
+			return descendingSet().iterator();
+		}
+
+		@Override
+		public int size() {
+			return this.map.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.map.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return this.map.containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (this.map.containsKey(o) == false) {
+				return false;
+			}
+			this.map.remove(o);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			this.map.clear();
+		}
+
+		@Override
+		public Comparator<? super Integer> comparator() {
+			return this.map.comparator();
+		}
+
+		@Override
+		public Integer first() {
+			return this.map.firstKey();
+		}
+
+		@Override
+		public Integer last() {
+			return this.map.lastKey();
+		}
+
+		@Override
+		public Integer lower(Integer e) {
+			return this.map.lowerKey(e);
+		}
+
+		@Override
+		public Integer floor(Integer e) {
+			return this.map.floorKey(e);
+		}
+
+		@Override
+		public Integer ceiling(Integer e) {
+			return this.map.ceilingKey(e);
+		}
+
+		@Override
+		public Integer higher(Integer e) {
+			return this.map.higherKey(e);
+		}
+
+		@Override
+		public Integer pollFirst() {
+			return keyOf(this.map.pollFirstEntry());
+		}
+
+		@Override
+		public Integer pollLast() {
+			return keyOf(this.map.pollLastEntry());
+		}
+
+		private static Integer keyOf(Map.Entry<Integer, String> e) {
+			return e == null ? null : e.getKey();
+		}
+
+		@Override
+		public NavigableSet<Integer> descendingSet() {
+			return new KeySet((AVLTreeMap) this.map.descendingMap());
+		}
+
+		@Override
+		public NavigableSet<Integer> subSet(Integer fromElement, boolean fromInclusive, Integer toElement,
+				boolean toInclusive) {
+			return new KeySet((AVLTreeMap) this.map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+		}
+
+		@Override
+		public NavigableSet<Integer> headSet(Integer toElement, boolean inclusive) {
+			return new KeySet((AVLTreeMap) this.map.headMap(toElement, inclusive));
+		}
+
+		@Override
+		public NavigableSet<Integer> tailSet(Integer fromElement, boolean inclusive) {
+			return new KeySet((AVLTreeMap) this.map.tailMap(fromElement, inclusive));
+		}
+
+		@Override
+		public SortedSet<Integer> subSet(Integer fromElement, Integer toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<Integer> headSet(Integer toElement) {
+			return headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<Integer> tailSet(Integer fromElement) {
+			return tailSet(fromElement, true);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *
+ *
+ * AVLTreeMetrics
+ *
+ * Counters and histograms of the work done by one AVLTree: rotations,
+ * promotions, path lengths, size walks and split/join costs. Enabled per tree
+ * by AVLTree.enableMetrics(); a tree without metrics pays a null-check only.
+ * Like AVLTree itself, the counters are not thread-safe.
+ *
+ */
+
+public class AVLTreeMetrics implements AVLTreeMetricsMBean {
+
+	// paths and walks longer than this are counted in the last bucket
+	// (an AVL tree of int keys is never higher than 46)
+	private static final int MAX_BUCKET = 64;
+
+	// fields of AVLTreeMetrics
+	private long insertSingleRotations;
+	private long insertDoubleRotations;
+	private long deleteSingleRotations;
+	private long deleteDoubleRotations;
+	private long promotions;
+	private long demotions;
+	private long splits;
+	private long splitCost;
+	private long joins;
+	private long joinCost;
+	private final long[] searchPaths = new long[MAX_BUCKET + 1];
+	private final long[] sizeWalks = new long[MAX_BUCKET + 1];
+	private int currentPath;
+
+	// records a rotation done while rebalancing after insert (or join) or after delete
+	// complexity: O(1)
+	void rotation(boolean afterInsert, boolean isDouble) {
+		if (afterInsert) {
+			if (isDouble) {
+				this.insertDoubleRotations++;
+			} else {
+				this.insertSingleRotations++;
+			}
+		} else {
+			if (isDouble) {
+				this.deleteDoubleRotations++;
+			} else {
+				this.deleteSingleRotations++;
+			}
+		}
+	}
+
+	// records a promotion
+	// complexity: O(1)
+	void promotion() {
+		this.promotions++;
+	}
+
+	// records a demotion
+	// complexity: O(1)
+	void demotion() {
+		this.demotions++;
+	}
+
+	// records one node visited by the current root-to-node walk
+	// complexity: O(1)
+	void step() {
+		this.currentPath++;
+	}
+
+	// closes the current root-to-node walk, adding its length to the histogram
+	// complexity: O(1)
+	void endPath() {
+		this.searchPaths[Math.min(this.currentPath, MAX_BUCKET)]++;
+		this.currentPath = 0;
+	}
+
+	// records a walk that fixed the sizes of length nodes on the way to the root
+	// complexity: O(1)
+	void sizeWalk(int length) {
+		this.sizeWalks[Math.min(length, MAX_BUCKET)]++;
+	}
+
+	// records a split and the total cost of the joins it did
+	// complexity: O(1)
+	void split(int cost) {
+		this.splits++;
+		this.splitCost += cost;
+	}
+
+	// records a join and its cost
+	// complexity: O(1)
+	void join(int cost) {
+		this.joins++;
+		this.joinCost += cost;
+	}
+
+	/**
+	 * public void register(String name)
+	 *
+	 * Registers these metrics in the platform MBean server under the object name
+	 * "AVLTree:type=AVLTreeMetrics,name=" + name.
+	 */
+	// complexity: O(1)
+	public void register(String name) {
+		try {
+			ObjectName objectName = new ObjectName("AVLTree:type=AVLTreeMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("could not register AVLTreeMetrics " + name, e);
+		}
+	}
+
+	/**
+	 * public long[] getSearchPathHistogram()
+	 *
+	 * Returns a copy of the walk-length histogram: entry i counts the walks that
+	 * visited i nodes (the last entry also counts longer walks).
+	 */
+	// complexity: O(1)
+	public long[] getSearchPathHistogram() {
+		return this.searchPaths.clone();
+	}
+
+	/**
+	 * public long[] getSizeWalkHistogram()
+	 *
+	 * Returns a copy of the size-walk histogram: entry i counts the walks that
+	 * updated i nodes (the last entry also counts longer walks).
+	 */
+	// complexity: O(1)
+	public long[] getSizeWalkHistogram() {
+		return this.sizeWalks.clone();
+	}
+
+	@Override
+	public long getInsertSingleRotations() {
+		return this.insertSingleRotations;
+	}
+
+	@Override
+	public long getInsertDoubleRotations() {
+		return this.insertDoubleRotations;
+	}
+
+	@Override
+	public long getDeleteSingleRotations() {
+		return this.deleteSingleRotations;
+	}
+
+	@Override
+	public long getDeleteDoubleRotations() {
+		return this.deleteDoubleRotations;
+	}
+
+	@Override
+	public long getPromotions() {
+		return this.promotions;
+	}
+
+	@Override
+	public long getDemotions() {
+		return this.demotions;
+	}
+
+	@Override
+	public long getSearches() {
+		return count(this.searchPaths);
+	}
+
+	@Override
+	public double getMeanSearchPath() {
+		return mean(this.searchPaths);
+	}
+
+	@Override
+	public int getSearchPathPercentile99() {
+		return percentile(this.searchPaths, 0.99);
+	}
+
+	@Override
+	public long getSizeWalks() {
+		return count(this.sizeWalks);
+	}
+
+	@Override
+	public double getMeanSizeWalk() {
+		return mean(this.sizeWalks);
+	}
+
+	@Override
+	public long getSplits() {
+		return this.splits;
+	}
+
+	@Override
+	public long getSplitCost() {
+		return this.splitCost;
+	}
+
+	@Override
+	public long getJoins() {
+		return this.joins;
+	}
+
+	@Override
+	public long getJoinCost() {
+		return this.joinCost;
+	}
+
+	@Override
+	public void reset() {
+		this.insertSingleRotations = 0;
+		this.insertDoubleRotations = 0;
+		this.deleteSingleRotations = 0;
+		this.deleteDoubleRotations = 0;
+		this.promotions = 0;
+		this.demotions = 0;
+		this.splits = 0;
+		this.splitCost = 0;
+		this.joins = 0;
+		this.joinCost = 0;
+		this.currentPath = 0;
+		Arrays.fill(this.searchPaths, 0);
+		Arrays.fill(this.sizeWalks, 0);
+	}
+
+	// returns the number of samples in histogram
+	// complexity: O(1)
+	private static long count(long[] histogram) {
+		long res = 0;
+		for (long c : histogram) {
+			res += c;
+		}
+		return res;
+	}
+
+	// returns the mean sample of histogram, or 0 if it is empty
+	// complexity: O(1)
+	private static double mean(long[] histogram) {
+		long samples = 0;
+		long total = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			samples += histogram[i];
+			total += i * histogram[i];
+		}
+		return samples == 0 ? 0 : (double) total / samples;
+	}
+
+	// returns the smallest bucket that covers fraction p of the samples of histogram
+	// complexity: O(1)
+	private static int percentile(long[] histogram, double p) {
+		long target = (long) Math.ceil(count(histogram) * p);
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= target && seen > 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+}
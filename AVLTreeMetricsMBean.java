@@ -0,0 +1,43 @@
+
+/**
+ *
+ *
+ * AVLTreeMetricsMBean
+ *
+ * JMX view of AVLTreeMetrics, see AVLTreeMetrics.register(String).
+ *
+ */
+
+public interface AVLTreeMetricsMBean {
+	public long getInsertSingleRotations(); // single rotations done by insertRebalanceLeft/Right
+
+	public long getInsertDoubleRotations(); // double rotations done by insertRebalanceLeft/Right
+
+	public long getDeleteSingleRotations(); // single rotations done by deleteRebalanceLeft/Right
+
+	public long getDeleteDoubleRotations(); // double rotations done by deleteRebalanceLeft/Right
+
+	public long getPromotions(); // rank increases
+
+	public long getDemotions(); // rank decreases
+
+	public long getSearches(); // number of recorded root-to-node walks (search, insert, delete)
+
+	public double getMeanSearchPath(); // mean number of nodes visited per walk
+
+	public int getSearchPathPercentile99(); // 99th percentile of nodes visited per walk
+
+	public long getSizeWalks(); // number of size-fixing walks to the root
+
+	public double getMeanSizeWalk(); // mean number of nodes updated per size walk
+
+	public long getSplits(); // number of split calls
+
+	public long getSplitCost(); // total join cost of all splits
+
+	public long getJoins(); // number of join calls
+
+	public long getJoinCost(); // total cost returned by all joins
+
+	public void reset(); // sets all counters back to 0
+}
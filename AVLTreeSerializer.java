@@ -0,0 +1,286 @@
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ *
+ *
+ * AVLTreeSerializer
+ *
+ * A compact, versioned binary format for AVLTree, written and read through NIO
+ * channels with a fixed-size buffer, so trees larger than any single buffer
+ * can be stored and loaded.
+ *
+ * Format (version 1): the magic bytes "AVLT", a version byte, the number of
+ * items n as a varint, then n items in increasing key order. Each item is its
+ * key - the first as a zigzag varint, every other as the varint of its gap from
+ * the previous key - followed by its info: the varint of (byte length + 1) and
+ * the UTF-8 bytes, or a single 0 for a null info.
+ *
+ */
+
+public class AVLTreeSerializer {
+
+	private static final byte[] MAGIC = { 'A', 'V', 'L', 'T' };
+	private static final byte VERSION = 1;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// a varint of a long takes at most 10 bytes
+	private static final int MAX_VARINT = 10;
+
+	private AVLTreeSerializer() {
+	}
+
+	/**
+	 * public static void write(AVLTree tree, Path file)
+	 *
+	 * Writes the tree to file, replacing its content.
+	 */
+	// complexity: O(n)
+	public static void write(AVLTree tree, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(tree, channel);
+		}
+	}
+
+	/**
+	 * public static void write(AVLTree tree, WritableByteChannel channel)
+	 *
+	 * Writes the tree to channel, in-order, without materializing it as arrays.
+	 * The channel is not closed.
+	 */
+	// complexity: O(n)
+	public static void write(AVLTree tree, WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		buffer.put(MAGIC);
+		buffer.put(VERSION);
+		putVarint(buffer, tree.size());
+
+		boolean first = true;
+		long previous = 0;
+		Iterator<AVLTree.IAVLNode> it = tree.iterator();
+		while (it.hasNext()) {
+			AVLTree.IAVLNode node = it.next();
+			if (buffer.remaining() < 2 * MAX_VARINT) {
+				flush(buffer, channel);
+			}
+
+			long key = node.getKey();
+			if (first) {
+				putVarint(buffer, (key << 1) ^ (key >> 63));
+				first = false;
+			} else {
+				putVarint(buffer, key - previous);
+			}
+			previous = key;
+
+			if (node.getValue() == null) {
+				putVarint(buffer, 0);
+				continue;
+			}
+			byte[] bytes = node.getValue().getBytes(StandardCharsets.UTF_8);
+			putVarint(buffer, bytes.length + 1L);
+			if (bytes.length <= buffer.remaining()) {
+				buffer.put(bytes);
+			} else {
+				flush(buffer, channel);
+				ByteBuffer big = ByteBuffer.wrap(bytes);
+				while (big.hasRemaining()) {
+					channel.write(big);
+				}
+			}
+		}
+
+		flush(buffer, channel);
+	}
+
+	/**
+	 * public static AVLTree read(Path file)
+	 *
+	 * Reads a tree written by write.
+	 */
+	// complexity: O(n)
+	public static AVLTree read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return read(channel);
+		}
+	}
+
+	/**
+	 * public static AVLTree read(ReadableByteChannel channel)
+	 *
+	 * Reads a tree written by write. The items are streamed straight into a
+	 * perfectly balanced tree, with no rebalancing and no intermediate arrays.
+	 * Throws IOException if the data is not a valid version 1 tree.
+	 */
+	// complexity: O(n)
+	public static AVLTree read(ReadableByteChannel channel) throws IOException {
+		Reader reader = new Reader(channel);
+		for (byte b : MAGIC) {
+			if (reader.get() != b) {
+				throw new IOException("not an AVLTree stream");
+			}
+		}
+		byte version = reader.get();
+		if (version != VERSION) {
+			throw new IOException("unsupported AVLTree stream version " + version);
+		}
+
+		long n = reader.getVarint();
+		if (n < 0 || n > Integer.MAX_VALUE) {
+			throw new IOException("corrupt AVLTree stream: bad size " + n);
+		}
+		if (n == 0) {
+			return new AVLTree();
+		}
+		return new AVLTree(build(reader, (int) n));
+	}
+
+	// reads the next n items and builds a balanced subtree of them, in-order:
+	// left half first, then the middle item, then the right half
+	// complexity: O(n)
+	private static AVLTree.IAVLNode build(Reader reader, int n) throws IOException {
+		if (n == 0) {
+			return AVLTree.virtualNode;
+		}
+
+		int leftCount = (n - 1) / 2;
+		AVLTree.IAVLNode left = build(reader, leftCount);
+		AVLTree.IAVLNode node = reader.getItem();
+		AVLTree.IAVLNode right = build(reader, n - 1 - leftCount);
+
+		node.setLeft(left);
+		node.setRight(right);
+		left.setParent(node);
+		right.setParent(node);
+		node.setHeight(Math.max(left.getHeight(), right.getHeight()) + 1);
+		node.setSize(n);
+		return node;
+	}
+
+	// writes v as an unsigned LEB128 varint
+	// complexity: O(1)
+	private static void putVarint(ByteBuffer buffer, long v) {
+		while ((v & ~0x7FL) != 0) {
+			buffer.put((byte) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		buffer.put((byte) v);
+	}
+
+	// writes the buffered bytes to channel and empties the buffer
+	// complexity: O(buffer size)
+	private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// buffered reader of the stream, refills a fixed-size buffer from the channel
+	private static class Reader {
+		private final ReadableByteChannel channel;
+		private final ByteBuffer buffer;
+		private boolean first;
+		private long previous;
+
+		Reader(ReadableByteChannel channel) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			this.buffer.flip();
+			this.first = true;
+		}
+
+		// returns the next byte, throws EOFException if the stream ended
+		byte get() throws IOException {
+			if (this.buffer.hasRemaining() == false) {
+				this.buffer.clear();
+				int read = 0;
+				while (read == 0) {
+					read = this.channel.read(this.buffer);
+				}
+				this.buffer.flip();
+				if (read < 0) {
+					throw new EOFException("truncated AVLTree stream");
+				}
+			}
+			return this.buffer.get();
+		}
+
+		// reads an unsigned LEB128 varint
+		long getVarint() throws IOException {
+			long v = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = get();
+				v |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return v;
+				}
+			}
+			throw new IOException("corrupt AVLTree stream: varint too long");
+		}
+
+		// reads the next item as a detached node, checking keys are increasing
+		AVLTree.IAVLNode getItem() throws IOException {
+			long key;
+			if (this.first) {
+				long zigzag = getVarint();
+				key = (zigzag >>> 1) ^ -(zigzag & 1);
+				this.first = false;
+			} else {
+				long gap = getVarint();
+				if (gap <= 0 || gap > (long) Integer.MAX_VALUE - this.previous) {
+					throw new IOException("corrupt AVLTree stream: keys not increasing");
+				}
+				key = this.previous + gap;
+			}
+			if (key < Integer.MIN_VALUE || key > Integer.MAX_VALUE) {
+				throw new IOException("corrupt AVLTree stream: key out of range");
+			}
+			this.previous = key;
+
+			long length = getVarint() - 1;
+			String info = null;
+			if (length < -1 || length > Integer.MAX_VALUE - 1) {
+				throw new IOException("corrupt AVLTree stream: bad info length");
+			}
+			if (length >= 0) {
+				info = new String(getBytes((int) length), StandardCharsets.UTF_8);
+			}
+			return new AVLTree.AVLNode((int) key, info);
+		}
+
+		// reads length bytes, across as many refills as needed
+		// the array starts at one buffer and doubles only as bytes arrive, so a corrupt length in a
+		// short stream ends in EOFException instead of allocating up to 2GB
+		byte[] getBytes(int length) throws IOException {
+			byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+			int done = 0;
+			while (done < length) {
+				if (done == bytes.length) {
+					bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+				}
+				if (this.buffer.hasRemaining() == false) {
+					bytes[done] = get();
+					done++;
+					continue;
+				}
+				int chunk = Math.min(bytes.length - done, this.buffer.remaining());
+				this.buffer.get(bytes, done, chunk);
+				done += chunk;
+			}
+			return bytes;
+		}
+	}
+}
@@ -0,0 +1,949 @@
+
+import java.util.Arrays;
+
+/**
+ *
+ *
+ * ArrayAVLTree
+ *
+ * An AVL tree with distinct int keys and String infos, like AVLTree, that keeps
+ * its nodes in parallel arrays instead of AVLNode objects. A node is an index n
+ * with key[n], info[n], left[n], right[n], parent[n], rank[n] and size[n]. Index
+ * 0 is the virtual node (rank -1, size 0), the indices of deleted nodes are kept
+ * on a free-list threaded through left[], and the arrays grow by half when full.
+ *
+ * An item takes 6 ints and one reference, 28 bytes with compressed oops (plus
+ * the unused part of the arrays), where an AVLNode takes 40; and there is no
+ * object per item for the garbage collector to trace, only the info Strings.
+ *
+ * Nodes are not handed out, so where AVLTree takes an IAVLNode this tree takes a
+ * key: join gets the key and info of the middle item. Otherwise the algorithms
+ * are those of AVLTree, and insert, delete, split and join return the same
+ * counts for the same operations.
+ *
+ * The trees made by split share the arrays of the tree they came from, so split
+ * and join re-link indices and copy nothing. Joining a tree with other arrays
+ * copies its items in first.
+ *
+ */
+
+public class ArrayAVLTree {
+
+	// the virtual node, the missing child of every leaf and the parent of every root
+	private static final int NIL = 0;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	// the arrays of a tree and of the trees split from it
+	private static final class Store {
+		int[] key;
+		String[] info;
+		int[] left;
+		int[] right;
+		int[] parent;
+		int[] rank;
+		int[] size;
+		int used; // indices below used were handed out at least once
+		int free; // head of the free-list, NIL if it is empty
+
+		Store(int capacity) {
+			int length = Math.min(Math.max(capacity, 1), MAX_CAPACITY - 1) + 1;
+			this.key = new int[length];
+			this.info = new String[length];
+			this.left = new int[length];
+			this.right = new int[length];
+			this.parent = new int[length];
+			this.rank = new int[length];
+			this.size = new int[length];
+			this.rank[NIL] = -1;
+			this.used = 1;
+			this.free = NIL;
+		}
+
+		// returns a new leaf (k, i), re-using a freed index if there is one
+		// complexity: O(1) amortized
+		int allocate(int k, String i) {
+			int node;
+			if (this.free != NIL) {
+				node = this.free;
+				this.free = this.left[node];
+			} else {
+				if (this.used == this.key.length) {
+					grow();
+				}
+				node = this.used++;
+			}
+
+			this.key[node] = k;
+			this.info[node] = i;
+			this.left[node] = NIL;
+			this.right[node] = NIL;
+			this.parent[node] = NIL;
+			this.rank[node] = 0;
+			this.size[node] = 1;
+			return node;
+		}
+
+		// puts an unlinked node on the free-list
+		// complexity: O(1)
+		void release(int node) {
+			this.info[node] = null;
+			this.left[node] = this.free;
+			this.free = node;
+		}
+
+		// complexity: O(capacity)
+		private void grow() {
+			int length = this.key.length;
+			if (length == MAX_CAPACITY) {
+				throw new IllegalStateException("ArrayAVLTree is full");
+			}
+			int newLength = (int) Math.min((long) length + (length >> 1) + 1, MAX_CAPACITY);
+
+			this.key = Arrays.copyOf(this.key, newLength);
+			this.info = Arrays.copyOf(this.info, newLength);
+			this.left = Arrays.copyOf(this.left, newLength);
+			this.right = Arrays.copyOf(this.right, newLength);
+			this.parent = Arrays.copyOf(this.parent, newLength);
+			this.rank = Arrays.copyOf(this.rank, newLength);
+			this.size = Arrays.copyOf(this.size, newLength);
+		}
+	}
+
+	// fields of ArrayAVLTree
+	private final Store store;
+	private int root;
+	private int size;
+
+	// empty tree-constructor
+	public ArrayAVLTree() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	// empty tree-constructor with room for capacity items before the arrays grow
+	public ArrayAVLTree(int capacity) {
+		this.store = new Store(capacity);
+		this.root = NIL;
+		this.size = 0;
+	}
+
+	// tree-constructor for the sub-tree of root, in the arrays of store
+	private ArrayAVLTree(Store store, int root) {
+		this.store = store;
+		this.root = root;
+		this.size = store.size[root];
+		if (root != NIL) {
+			store.parent[root] = NIL;
+		}
+	}
+
+	/**
+	 * public boolean empty()
+	 *
+	 * Returns true if and only if the tree is empty.
+	 *
+	 */
+	// complexity: O(1)
+	public boolean empty() {
+		return this.root == NIL;
+	}
+
+	// returns the node with key k, or NIL if k is not in the tree
+	// complexity: O(logn)
+	private int searchNode(int k) {
+		Store s = this.store;
+		int node = this.root;
+		while (node != NIL && s.key[node] != k) {
+			node = k < s.key[node] ? s.left[node] : s.right[node];
+		}
+		return node;
+	}
+
+	/**
+	 * public String search(int k)
+	 *
+	 * Returns the info of an item with key k if it exists in the tree. otherwise,
+	 * returns null.
+	 */
+	// complexity: O(logn)
+	public String search(int k) {
+		int node = searchNode(k);
+		return node == NIL ? null : this.store.info[node];
+	}
+
+	// increases node`s rank by 1
+	// complexity: O(1)
+	private void promote(int node) {
+		this.store.rank[node]++;
+	}
+
+	// decreases node`s rank by 1
+	// complexity: O(1)
+	private void demote(int node) {
+		this.store.rank[node]--;
+	}
+
+	// sets the size of node from its children
+	// complexity: O(1)
+	private void updateSize(int node) {
+		Store s = this.store;
+		s.size[node] = s.size[s.left[node]] + s.size[s.right[node]] + 1;
+	}
+
+	// links child in place of node under parent (as the root if parent is NIL)
+	// complexity: O(1)
+	private void replaceLink(int parent, int node, int child) {
+		Store s = this.store;
+		if (parent == NIL) {
+			this.root = child;
+		} else if (s.left[parent] == node) {
+			s.left[parent] = child;
+		} else {
+			s.right[parent] = child;
+		}
+		if (child != NIL) {
+			s.parent[child] = parent;
+		}
+	}
+
+	// rotates right x-y as we saw at class: y -> upper, x -> lower
+	// complexity: O(1)
+	private void rightRotate(int y, int x) {
+		Store s = this.store;
+		replaceLink(s.parent[y], y, x);
+		s.parent[y] = x;
+
+		s.left[y] = s.right[x];
+		if (s.left[y] != NIL) {
+			s.parent[s.left[y]] = y;
+		}
+		s.right[x] = y;
+
+		updateSize(y);
+		updateSize(x);
+	}
+
+	// rotates left x-y as we saw at class: y -> lower, x -> upper
+	// complexity: O(1)
+	private void leftRotate(int y, int x) {
+		Store s = this.store;
+		replaceLink(s.parent[x], x, y);
+		s.parent[x] = y;
+
+		s.right[x] = s.left[y];
+		if (s.right[x] != NIL) {
+			s.parent[s.right[x]] = x;
+		}
+		s.left[y] = x;
+
+		updateSize(x);
+		updateSize(y);
+	}
+
+	// returns the rank-difference between parent and child
+	// complexity: O(1)
+	private int rankDiff(int parent, int child) {
+		return this.store.rank[parent] - this.store.rank[child];
+	}
+
+	// returns true iff node is a left child
+	// complexity: O(1)
+	private boolean isLeftChild(int node) {
+		int parent = this.store.parent[node];
+		return parent != NIL && this.store.left[parent] == node;
+	}
+
+	// returns true iff node is a leaf
+	// complexity: O(1)
+	private boolean isLeaf(int node) {
+		return this.store.left[node] == NIL && this.store.right[node] == NIL;
+	}
+
+	// balance tree after insert, returns num of balance operations
+	// x is left child
+	// complexity: O(logn)
+	private int insertRebalanceLeft(int x) {
+		Store s = this.store;
+		int z = s.parent[x];
+		int y = s.right[z];
+
+		int a = s.left[x];
+		int b = s.right[x];
+
+		// Case 1 - 0,1
+		if (rankDiff(z, x) == 0 && rankDiff(z, y) == 1) {
+			promote(z);
+			return insertRebalance(z) + 1;
+		}
+
+		// case 2 - 0,2
+		if (rankDiff(z, x) == 0 && rankDiff(z, y) == 2) {
+			if (rankDiff(x, a) == 1 && rankDiff(x, b) == 2) { // Case 2
+				rightRotate(z, x);
+				demote(z);
+				return 2;
+			}
+			if (rankDiff(x, a) == 2 && rankDiff(x, b) == 1) { // Case 3
+				leftRotate(b, x);
+				rightRotate(z, b);
+				demote(x);
+				demote(z);
+				promote(b);
+				return 5;
+			}
+			// rebalance after join
+			if (rankDiff(x, a) == 1 && rankDiff(x, b) == 1) {
+				rightRotate(z, x);
+				promote(x);
+				return insertRebalance(x) + 2;
+			}
+		}
+
+		return 0;
+	}
+
+	// balance tree after insert, returns num of balance operations
+	// x is not left child
+	// complexity: O(logn)
+	private int insertRebalanceRight(int x) {
+		Store s = this.store;
+		int z = s.parent[x];
+		int y = s.left[z];
+
+		int a = s.right[x];
+		int b = s.left[x];
+
+		// Case 1
+		if (rankDiff(z, x) == 0 && rankDiff(z, y) == 1) {
+			promote(z);
+			return insertRebalance(z) + 1;
+		}
+
+		// Case "2" 2,0
+		if (rankDiff(z, y) == 2 && rankDiff(z, x) == 0) {
+			if (rankDiff(x, b) == 2 && rankDiff(x, a) == 1) { // Case 2
+				leftRotate(x, z);
+				demote(z);
+				return 2;
+			}
+			if (rankDiff(x, b) == 1 && rankDiff(x, a) == 2) { // Case "3" 1,2
+				rightRotate(x, b);
+				leftRotate(b, z);
+				demote(x);
+				demote(z);
+				promote(b);
+				return 5;
+			}
+			if (rankDiff(x, a) == 1 && rankDiff(x, b) == 1) {
+				leftRotate(x, z);
+				promote(x);
+				return insertRebalance(x) + 2;
+			}
+		}
+
+		return 0;
+	}
+
+	// calls the left or right balance func according to needed
+	// returns num of balance operations
+	// complexity: O(logn)
+	private int insertRebalance(int x) {
+		if (this.store.parent[x] == NIL) {
+			return 0;
+		}
+
+		if (isLeftChild(x)) {
+			return insertRebalanceLeft(x);
+		} else {
+			return insertRebalanceRight(x); // Symmetric
+		}
+	}
+
+	// returns the node with key k, or the node that should become its parent, NIL if the tree is empty
+	// complexity: O(logn)
+	private int treePosition(int k) {
+		Store s = this.store;
+		int x = this.root;
+		int y = NIL;
+		while (x != NIL) {
+			if (k == s.key[x]) {
+				return x;
+			}
+			y = x;
+			x = k < s.key[x] ? s.left[x] : s.right[x];
+		}
+		return y;
+	}
+
+	// makes child a child of parent, and adds it to the sizes above
+	// complexity: O(logn)
+	private void insertChild(int parent, int child) {
+		Store s = this.store;
+		if (s.key[child] < s.key[parent]) {
+			s.left[parent] = child;
+		} else {
+			s.right[parent] = child;
+		}
+		s.parent[child] = parent;
+		increaseSize(child);
+	}
+
+	// increases size of all nodes, from node`s parent up to root
+	// complexity: O(logn)
+	private void increaseSize(int node) {
+		Store s = this.store;
+		for (int parent = s.parent[node]; parent != NIL; parent = s.parent[parent]) {
+			s.size[parent]++;
+		}
+	}
+
+	// decreases size of all nodes, from node`s parent up to root
+	// complexity: O(logn)
+	private void decreaseSize(int node) {
+		Store s = this.store;
+		for (int parent = s.parent[node]; parent != NIL; parent = s.parent[parent]) {
+			s.size[parent]--;
+		}
+	}
+
+	/**
+	 * public int insert(int k, String i)
+	 *
+	 * Inserts an item with key k and info i to the AVL tree. Returns the number of
+	 * re-balancing operations, counted as AVLTree.insert counts them, or -1 if an
+	 * item with key k already exists in the tree.
+	 */
+	// complexity: O(logn), O(n) when the arrays grow
+	public int insert(int k, String i) {
+		int insertPos = treePosition(k);
+		if (insertPos != NIL && this.store.key[insertPos] == k) {
+			return -1;
+		}
+
+		int node = this.store.allocate(k, i);
+		this.size++;
+		if (insertPos == NIL) {
+			this.root = node;
+			return 0;
+		}
+
+		boolean wasLeaf = isLeaf(insertPos);
+		insertChild(insertPos, node);
+		return wasLeaf ? insertRebalance(node) : 0;
+	}
+
+	// balance tree after delete, returns num of balance operations
+	// the left case
+	// complexity: O(logn)
+	private int deleteRebalanceLeft(int z) {
+		Store s = this.store;
+		int y = s.right[z];
+		int a = s.left[y];
+		int b = s.right[y];
+
+		// Case 2: 3,1 1,1
+		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 1) {
+			leftRotate(y, z);
+			demote(z);
+			promote(y);
+			return 3;
+		}
+
+		// Case 3: 3,1 2,1
+		if (rankDiff(y, a) == 2 && rankDiff(y, b) == 1) {
+			leftRotate(y, z);
+			demote(z);
+			demote(z);
+			return deleteRebalance(s.parent[y]) + 3;
+		}
+
+		// Case 4: 3,1 1,2
+		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 2) {
+			rightRotate(y, a);
+			leftRotate(a, z);
+			demote(z);
+			demote(z);
+			demote(y);
+			promote(a);
+			return deleteRebalance(s.parent[a]) + 6;
+		}
+
+		return 0;
+	}
+
+	// balance tree after delete, returns num of balance operations
+	// Right-symmetric to deleteRebalanceLeft
+	// complexity: O(logn)
+	private int deleteRebalanceRight(int z) {
+		Store s = this.store;
+		int y = s.left[z];
+		int a = s.left[y];
+		int b = s.right[y];
+
+		// Case 2: 1,3 1,1
+		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 1) {
+			rightRotate(z, y);
+			demote(z);
+			promote(y);
+			return 3;
+		}
+
+		// Case 3: 1,3 1,2
+		if (rankDiff(y, a) == 1 && rankDiff(y, b) == 2) {
+			rightRotate(z, y);
+			demote(z);
+			demote(z);
+			return deleteRebalance(s.parent[y]) + 3;
+		}
+
+		// Case 4: 1,3 2,1
+		if (rankDiff(y, a) == 2 && rankDiff(y, b) == 1) {
+			leftRotate(b, y);
+			rightRotate(z, b);
+			demote(z);
+			demote(z);
+			demote(y);
+			promote(b);
+			return deleteRebalance(s.parent[b]) + 6;
+		}
+
+		return 0;
+	}
+
+	// calls the right deleteRebalance func, which balances the tree after deletion & returns num of balance op.
+	// complexity: O(logn)
+	private int deleteRebalance(int z) {
+		if (z == NIL) {
+			return 0;
+		}
+		Store s = this.store;
+
+		// Case 1: 2,2
+		if (rankDiff(z, s.left[z]) == 2 && rankDiff(z, s.right[z]) == 2) {
+			demote(z);
+			return deleteRebalance(s.parent[z]) + 1;
+		}
+
+		// Case 2: 3,1
+		if (rankDiff(z, s.left[z]) == 3 && rankDiff(z, s.right[z]) == 1) {
+			return deleteRebalanceLeft(z);
+		}
+
+		// Case 2 symmetric: 1,3
+		if (rankDiff(z, s.left[z]) == 1 && rankDiff(z, s.right[z]) == 3) {
+			return deleteRebalanceRight(z);
+		}
+
+		return 0;
+	}
+
+	/**
+	 * public int delete(int k)
+	 *
+	 * Deletes an item with key k from the tree, if it is there. Returns the number
+	 * of re-balancing operations, counted as AVLTree.delete counts them, or -1 if
+	 * an item with key k was not found in the tree.
+	 */
+	// a node with two children takes the item of its successor, whose node is removed instead;
+	// AVLTree swaps the two nodes, which leaves the same ranks and sizes in the same places
+	// complexity: O(logn)
+	public int delete(int k) {
+		int node = searchNode(k);
+		if (node == NIL) {
+			return -1;
+		}
+		Store s = this.store;
+
+		if (s.left[node] != NIL && s.right[node] != NIL) {
+			int successor = minNode(s.right[node]);
+			s.key[node] = s.key[successor];
+			s.info[node] = s.info[successor];
+			node = successor;
+		}
+
+		// node has at most one child now: splice it out and rebalance from its parent
+		int z = s.parent[node];
+		int x = s.left[node] != NIL ? s.left[node] : s.right[node];
+		replaceLink(z, node, x);
+		decreaseSize(node);
+
+		int res = deleteRebalance(z);
+		this.size--;
+		s.release(node);
+		return res;
+	}
+
+	// returns the node with the smallest key in the sub-tree of node
+	// complexity: O(logn)
+	private int minNode(int node) {
+		while (this.store.left[node] != NIL) {
+			node = this.store.left[node];
+		}
+		return node;
+	}
+
+	// returns the node with the largest key in the sub-tree of node
+	// complexity: O(logn)
+	private int maxNode(int node) {
+		while (this.store.right[node] != NIL) {
+			node = this.store.right[node];
+		}
+		return node;
+	}
+
+	// returns the node with the next key after node, or NIL
+	// complexity: O(logn), O(1) amortized over an in-order walk
+	private int successor(int node) {
+		Store s = this.store;
+		if (s.right[node] != NIL) {
+			return minNode(s.right[node]);
+		}
+		int parent = s.parent[node];
+		while (parent != NIL && s.right[parent] == node) {
+			node = parent;
+			parent = s.parent[node];
+		}
+		return parent;
+	}
+
+	/**
+	 * public String min()
+	 *
+	 * Returns the info of the item with the smallest key in the tree, or null if
+	 * the tree is empty.
+	 */
+	// complexity: O(logn)
+	public String min() {
+		return empty() ? null : this.store.info[minNode(this.root)];
+	}
+
+	/**
+	 * public String max()
+	 *
+	 * Returns the info of the item with the largest key in the tree, or null if the
+	 * tree is empty.
+	 */
+	// complexity: O(logn)
+	public String max() {
+		return empty() ? null : this.store.info[maxNode(this.root)];
+	}
+
+	/**
+	 * public int[] keysToArray()
+	 *
+	 * Returns a sorted array which contains all keys in the tree, or an empty array
+	 * if the tree is empty.
+	 */
+	// complexity: O(n)
+	public int[] keysToArray() {
+		int[] arrKeys = new int[this.size];
+		int i = 0;
+		for (int node = empty() ? NIL : minNode(this.root); node != NIL; node = successor(node)) {
+			arrKeys[i++] = this.store.key[node];
+		}
+		return arrKeys;
+	}
+
+	/**
+	 * public String[] infoToArray()
+	 *
+	 * Returns an array which contains all info in the tree, sorted by their
+	 * respective keys, or an empty array if the tree is empty.
+	 */
+	// complexity: O(n)
+	public String[] infoToArray() {
+		String[] arrValues = new String[this.size];
+		int i = 0;
+		for (int node = empty() ? NIL : minNode(this.root); node != NIL; node = successor(node)) {
+			arrValues[i++] = this.store.info[node];
+		}
+		return arrValues;
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of items in the tree.
+	 */
+	// complexity: O(1)
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * public int select(int i)
+	 *
+	 * Returns the i-th smallest key in the tree (0-based).
+	 *
+	 * precondition: 0 <= i < size()
+	 */
+	// complexity: O(logn)
+	public int select(int i) {
+		Store s = this.store;
+		int node = this.root;
+		while (i != s.size[s.left[node]]) {
+			int leftSize = s.size[s.left[node]];
+			if (i < leftSize) {
+				node = s.left[node];
+			} else {
+				i -= leftSize + 1;
+				node = s.right[node];
+			}
+		}
+		return s.key[node];
+	}
+
+	/**
+	 * public int rank(int k)
+	 *
+	 * Returns the number of keys in the tree that are smaller than k. k does not
+	 * have to be in the tree.
+	 */
+	// complexity: O(logn)
+	public int rank(int k) {
+		Store s = this.store;
+		int count = 0;
+		int node = this.root;
+		while (node != NIL) {
+			if (k <= s.key[node]) {
+				node = s.left[node];
+			} else {
+				count += s.size[s.left[node]] + 1;
+				node = s.right[node];
+			}
+		}
+		return count;
+	}
+
+	// detaches node from its old place, so it can be re-used as the middle node of join
+	// complexity: O(1)
+	private int resetNode(int node) {
+		Store s = this.store;
+		s.left[node] = NIL;
+		s.right[node] = NIL;
+		s.parent[node] = NIL;
+		s.rank[node] = 0;
+		s.size[node] = 1;
+		return node;
+	}
+
+	// helper for split, joins sub-trees of the tree to bigger/smaller, walking up from x to the root
+	// every ancestor is re-used as the middle node of its join, returns the total cost of the joins
+	// complexity: O(logn)
+	private int splitUp(int x, ArrayAVLTree smaller, ArrayAVLTree bigger) {
+		Store s = this.store;
+		int cost = 0;
+		ArrayAVLTree sibling = new ArrayAVLTree(s, NIL);
+
+		int parent = s.parent[x];
+		while (parent != NIL) {
+			boolean fromLeft = s.left[parent] == x;
+			int next = s.parent[parent];
+			int subTree = fromLeft ? s.right[parent] : s.left[parent];
+
+			sibling.root = subTree;
+			sibling.size = s.size[subTree];
+			if (subTree != NIL) {
+				s.parent[subTree] = NIL;
+			}
+			resetNode(parent);
+
+			if (fromLeft) {
+				cost += bigger.joinTrees(parent, sibling);
+			} else {
+				cost += smaller.joinTrees(parent, sibling);
+			}
+
+			x = parent;
+			parent = next;
+		}
+
+		return cost;
+	}
+
+	/**
+	 * public ArrayAVLTree[] split(int x)
+	 *
+	 * splits the tree into 2 trees according to the key x. Returns an array [t1,
+	 * t2] with two AVL trees. keys(t1) < x < keys(t2). The two trees share the
+	 * arrays of this tree, which is left empty.
+	 *
+	 * precondition: search(x) != null
+	 */
+	// complexity: O(logn)
+	public ArrayAVLTree[] split(int x) {
+		Store s = this.store;
+		int node = searchNode(x);
+
+		ArrayAVLTree smaller = new ArrayAVLTree(s, s.left[node]);
+		ArrayAVLTree bigger = new ArrayAVLTree(s, s.right[node]);
+		splitUp(node, smaller, bigger);
+		s.release(node);
+
+		this.root = NIL;
+		this.size = 0;
+		return new ArrayAVLTree[] { smaller, bigger };
+	}
+
+	// fixes the sizes from node`s parent up to the root, after join
+	// complexity: O(logn)
+	private void fixSize(int node) {
+		Store s = this.store;
+		for (int parent = s.parent[node]; parent != NIL; parent = s.parent[parent]) {
+			updateSize(parent);
+		}
+	}
+
+	// finds the appro. place to join the trees (c from the graph we saw at class)
+	// complexity: O(|node.rank - k| + 1)
+	private int posToJoin(int node, int k, boolean isLeft) {
+		Store s = this.store;
+		int c = node;
+		while (s.rank[node] > k) {
+			c = node;
+			node = isLeft ? s.left[node] : s.right[node];
+		}
+		return c;
+	}
+
+	// joins same size trees (or with rankDiff = 1)
+	// complexity: O(1)
+	private int joinSameSizeTrees(ArrayAVLTree t1, int x, ArrayAVLTree t2) {
+		Store s = this.store;
+		int rank1 = s.rank[t1.root];
+		int rank2 = s.rank[t2.root];
+		int res = Math.abs(rank1 - rank2) + 1;
+		int size = t1.size + t2.size + 1;
+
+		insertChild(x, t1.root);
+		insertChild(x, t2.root);
+		updateSize(x);
+		s.rank[x] = Math.max(rank1, rank2) + 1;
+
+		this.root = x;
+		this.size = size;
+		return res;
+	}
+
+	// joins t1, x and t2 when one root is at least 2 ranks higher, small is the lower tree
+	// x goes down the near spine of big to the first node c of rank <= small`s rank + 1
+	// complexity: O(|t1.rank - t2.rank| + 1)
+	private int joinUneven(ArrayAVLTree small, int x, ArrayAVLTree big, boolean smallIsLeft) {
+		Store s = this.store;
+		int k = s.rank[small.root];
+		int res = Math.abs(s.rank[big.root] - k) + 1;
+		int size = small.size + big.size + 1;
+
+		int c = posToJoin(big.root, k, smallIsLeft);
+		int b = smallIsLeft ? s.left[c] : s.right[c];
+
+		s.rank[x] = k + 1;
+		insertChild(x, small.root);
+		if (b != NIL) {
+			insertChild(x, b);
+		}
+		insertChild(c, x);
+
+		this.root = big.root;
+		this.size = size;
+
+		updateSize(x);
+		insertRebalance(x);
+		fixSize(x);
+
+		return res;
+	}
+
+	// joins x and t with the tree, the body of join; x is a node of the arrays of both trees
+	// complexity: O(|tree.rank - t.rank| + 1)
+	private int joinTrees(int x, ArrayAVLTree t) {
+		Store s = this.store;
+		resetNode(x);
+
+		if (t.empty() && empty()) {
+			this.root = x;
+			this.size = 1;
+			return 1;
+		}
+		if (t.empty()) {
+			return attachEdge(x);
+		}
+		if (empty()) {
+			int ret = t.attachEdge(x);
+			this.root = t.root;
+			this.size = t.size;
+			return ret;
+		}
+
+		ArrayAVLTree t1 = s.key[t.root] < s.key[this.root] ? t : this;
+		ArrayAVLTree t2 = t1 == this ? t : this;
+		int rankT1 = s.rank[t1.root];
+		int rankT2 = s.rank[t2.root];
+
+		if (Math.abs(rankT1 - rankT2) <= 1) {
+			return joinSameSizeTrees(t1, x, t2);
+		}
+		if (rankT1 < rankT2) {
+			return joinUneven(t1, x, t2, true);
+		}
+		return joinUneven(t2, x, t1, false);
+	}
+
+	// joins x with the tree when the other tree is empty: x becomes the new min or max leaf
+	// complexity: O(logn)
+	private int attachEdge(int x) {
+		Store s = this.store;
+		int pos = s.key[x] < s.key[this.root] ? minNode(this.root) : maxNode(this.root);
+
+		insertChild(pos, x);
+		this.size++;
+		insertRebalance(x);
+
+		return s.rank[this.root] + 1;
+	}
+
+	// copies the sub-tree of node in the arrays of from into this tree`s arrays, shape and all,
+	// and frees it in from; returns the copy of node
+	// complexity: O(size of the sub-tree)
+	private int moveIn(Store from, int node, int parent) {
+		if (node == NIL) {
+			return NIL;
+		}
+		Store s = this.store;
+
+		int copy = s.allocate(from.key[node], from.info[node]);
+		s.parent[copy] = parent;
+		s.rank[copy] = from.rank[node];
+		s.size[copy] = from.size[node];
+		int left = moveIn(from, from.left[node], copy);
+		int right = moveIn(from, from.right[node], copy);
+		s.left[copy] = left;
+		s.right[copy] = right;
+
+		from.release(node);
+		return copy;
+	}
+
+	/**
+	 * public int join(int k, String i, ArrayAVLTree t)
+	 *
+	 * joins t and a new item (k, i) with the tree. Returns the complexity of the
+	 * operation (|tree.rank - t.rank| + 1), as AVLTree.join does. t is left empty.
+	 *
+	 * precondition: keys(t) < k < keys() or keys(t) > k > keys(). t/tree might be
+	 * empty (rank = -1).
+	 */
+	// a t that does not share this tree`s arrays is copied in first, in O(|t|)
+	// complexity: O(|tree.rank - t.rank| + 1)
+	public int join(int k, String i, ArrayAVLTree t) {
+		ArrayAVLTree other = t;
+		if (t.store != this.store) {
+			other = new ArrayAVLTree(this.store, moveIn(t.store, t.root, NIL));
+		}
+
+		int cost = joinTrees(this.store.allocate(k, i), other);
+		t.root = NIL;
+		t.size = 0;
+		return cost;
+	}
+}
@@ -0,0 +1,311 @@
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ *
+ *
+ * ConcurrentAVLTree
+ *
+ * A thread-safe AVLTree. Writers take an exclusive lock, readers of search, min
+ * and max do not lock at all: they walk the tree optimistically and only fall
+ * back to a shared read lock if a writer changed the tree meanwhile. Writers
+ * are serialized; see FineGrainedAVLTree for a tree whose writers lock only the
+ * nodes they change.
+ *
+ */
+
+public class ConcurrentAVLTree {
+
+	// an AVL tree of int keys is never higher than 1.44 * log(2^31), a longer walk
+	// can only happen on a tree that is being rotated, and will fail validation
+	private static final int MAX_DEPTH = 64;
+
+	// fields of ConcurrentAVLTree
+	private final AVLTree tree;
+	private final StampedLock lock;
+
+	// empty tree-constructor
+	public ConcurrentAVLTree() {
+		this(new AVLTree());
+	}
+
+	// wraps an existing tree, which must not be used directly afterwards
+	// readers share the read lock, so sizes are tracked to spare them from rebuilding stale ones
+	public ConcurrentAVLTree(AVLTree tree) {
+		this.tree = tree;
+		this.tree.enableSizeTracking();
+		this.lock = new StampedLock();
+	}
+
+	/**
+	 * public String search(int k)
+	 *
+	 * Returns the info of an item with key k if it exists in the tree. otherwise,
+	 * returns null. Does not block unless a writer is active at the same time.
+	 */
+	// complexity: O(logn)
+	public String search(int k) {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0) {
+			String res = searchOptimistic(k);
+			if (this.lock.validate(stamp)) {
+				return res;
+			}
+		}
+
+		// the same walk under the read lock: AVLTree.search would record into the tree`s
+		// metrics, which are not thread-safe and are shared by every reader
+		stamp = this.lock.readLock();
+		try {
+			return searchOptimistic(k);
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	// walks down from the root, records no metrics; without a lock the result is only meaningful
+	// if the stamp validates, as every read may observe a tree in the middle of a rotation, so nulls and long paths are tolerated
+	// complexity: O(logn)
+	private String searchOptimistic(int k) {
+		AVLTree.IAVLNode node = this.tree.getRoot();
+		for (int depth = 0; depth < MAX_DEPTH; depth++) {
+			if (node == null || node.isRealNode() == false) {
+				return null;
+			}
+			if (node.getKey() == k) {
+				return node.getValue();
+			}
+			node = node.getKey() > k ? node.getLeft() : node.getRight();
+		}
+		return null;
+	}
+
+	/**
+	 * public String min()
+	 *
+	 * Returns the info of the item with the smallest key in the tree, or null if
+	 * the tree is empty. Does not block unless a writer is active at the same time.
+	 */
+	// complexity: O(logn)
+	public String min() {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0) {
+			String res = edgeOptimistic(true);
+			if (this.lock.validate(stamp)) {
+				return res;
+			}
+		}
+
+		stamp = this.lock.readLock();
+		try {
+			return edgeOptimistic(true);
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public String max()
+	 *
+	 * Returns the info of the item with the largest key in the tree, or null if the
+	 * tree is empty. Does not block unless a writer is active at the same time.
+	 */
+	// complexity: O(logn)
+	public String max() {
+		long stamp = this.lock.tryOptimisticRead();
+		if (stamp != 0) {
+			String res = edgeOptimistic(false);
+			if (this.lock.validate(stamp)) {
+				return res;
+			}
+		}
+
+		stamp = this.lock.readLock();
+		try {
+			return edgeOptimistic(false);
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	// walks to the leftmost (or rightmost) node without locking, same rules as searchOptimistic
+	// complexity: O(logn)
+	private String edgeOptimistic(boolean left) {
+		AVLTree.IAVLNode node = this.tree.getRoot();
+		if (node == null) {
+			return null;
+		}
+		for (int depth = 0; depth < MAX_DEPTH; depth++) {
+			AVLTree.IAVLNode next = left ? node.getLeft() : node.getRight();
+			if (next == null || next.isRealNode() == false) {
+				return node.getValue();
+			}
+			node = next;
+		}
+		return null;
+	}
+
+	/**
+	 * public int insert(int k, String i)
+	 *
+	 * Inserts an item with key k and info i, under the write lock. Returns the
+	 * number of re-balancing operations, or -1 if k already exists in the tree.
+	 */
+	// complexity: O(logn)
+	public int insert(int k, String i) {
+		long stamp = this.lock.writeLock();
+		try {
+			return this.tree.insert(k, i);
+		} finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * public int delete(int k)
+	 *
+	 * Deletes the item with key k, under the write lock. Returns the number of
+	 * re-balancing operations, or -1 if k was not found in the tree.
+	 */
+	// complexity: O(logn)
+	public int delete(int k) {
+		long stamp = this.lock.writeLock();
+		try {
+			return this.tree.delete(k);
+		} finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * public int insertAll(int[] keys, String[] infos)
+	 *
+	 * Inserts a batch of items under a single write lock, see AVLTree.insertAll.
+	 */
+	// complexity: O(m logm + m log(n/m + 1))
+	public int insertAll(int[] keys, String[] infos) {
+		long stamp = this.lock.writeLock();
+		try {
+			return this.tree.insertAll(keys, infos);
+		} finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * public int deleteAll(int[] keys)
+	 *
+	 * Deletes a batch of keys under a single write lock, see AVLTree.deleteAll.
+	 */
+	// complexity: O(m logm + m log(n/m + 1))
+	public int deleteAll(int[] keys) {
+		long stamp = this.lock.writeLock();
+		try {
+			return this.tree.deleteAll(keys);
+		} finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of nodes in the tree.
+	 */
+	// complexity: O(1)
+	public int size() {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.size();
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public boolean empty()
+	 *
+	 * Returns true if and only if the tree is empty.
+	 */
+	// complexity: O(1)
+	public boolean empty() {
+		return size() == 0;
+	}
+
+	/**
+	 * public int rank(int k)
+	 *
+	 * Returns the number of keys in the tree that are smaller than k.
+	 */
+	// complexity: O(logn)
+	public int rank(int k) {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.rank(k);
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public int countInRange(int lo, int hi)
+	 *
+	 * Returns the number of keys k in the tree with lo <= k <= hi.
+	 */
+	// complexity: O(logn)
+	public int countInRange(int lo, int hi) {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.countInRange(lo, hi);
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public AVLTree copy()
+	 *
+	 * Returns a point-in-time copy of the tree, taken under the read lock. The copy
+	 * is private to the caller and can be read without any locking. It costs a
+	 * full copy; PersistentAVLTree takes snapshots in O(1).
+	 */
+	// complexity: O(n)
+	public AVLTree copy() {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.copy();
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public int[] keysToArray()
+	 *
+	 * Returns a sorted array of all keys, as one consistent snapshot.
+	 */
+	// complexity: O(n)
+	public int[] keysToArray() {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.keysToArray();
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * public String[] infoToArray()
+	 *
+	 * Returns all infos sorted by their keys, as one consistent snapshot.
+	 */
+	// complexity: O(n)
+	public String[] infoToArray() {
+		long stamp = this.lock.readLock();
+		try {
+			return this.tree.infoToArray();
+		} finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+}
@@ -0,0 +1,330 @@
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ *
+ *
+ * DurableAVLTree
+ *
+ * An AVLTree that survives crashes: every insert and delete that changes the
+ * tree is appended to a write-ahead log before the tree is changed,
+ * checkpoint() writes the whole tree to a snapshot file (see
+ * AVLTreeSerializer) and empties the log, and opening the directory again loads
+ * the snapshot and replays the log.
+ *
+ * Group commit: the log is fsynced once every groupCommit changes (and by
+ * sync(), checkpoint() and close()). Changes made after the last fsync may be
+ * lost by a crash; groupCommit = 1 makes every change durable before it returns.
+ * If logging a change fails (e.g. the fsync of its group), the change is not
+ * made and the IOException is thrown; as with any failed write, its record may
+ * still have reached the disk and be replayed by a later recovery.
+ *
+ */
+
+public class DurableAVLTree implements AutoCloseable {
+
+	private static final String SNAPSHOT_FILE = "snapshot.avlt";
+	private static final String LOG_FILE = "wal.log";
+
+	private static final byte INSERT = 1;
+	private static final byte DELETE = 2;
+
+	// a log record is: payload length (int), CRC32 of the payload (int), payload
+	private static final int RECORD_HEADER = 8;
+
+	// fields of DurableAVLTree
+	private final Path dir;
+	private final int groupCommit;
+	private final AVLTree tree;
+	private final FileChannel log;
+	private ByteBuffer pending;
+	private int unsynced;
+	private long logEnd; // the log is durable up to here, the pending records are written after it
+
+	/**
+	 * public DurableAVLTree(Path dir, int groupCommit)
+	 *
+	 * Opens (or creates) the store in directory dir, recovering the tree from its
+	 * snapshot and log. The log is fsynced after every groupCommit changes.
+	 */
+	// complexity: O(snapshot size + log size)
+	public DurableAVLTree(Path dir, int groupCommit) throws IOException {
+		if (groupCommit < 1) {
+			throw new IllegalArgumentException("groupCommit must be at least 1");
+		}
+
+		this.dir = dir;
+		this.groupCommit = groupCommit;
+		this.pending = ByteBuffer.allocate(1 << 12);
+		this.unsynced = 0;
+
+		Files.createDirectories(dir);
+		Path snapshot = dir.resolve(SNAPSHOT_FILE);
+		this.tree = Files.exists(snapshot) ? AVLTreeSerializer.read(snapshot) : new AVLTree();
+
+		this.log = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		// a log that was just created is lost with everything in it unless its directory entry is durable
+		syncDirectory();
+		long end = replay();
+		// drop a torn record left by a crash in the middle of a write
+		this.log.truncate(end);
+		this.logEnd = end;
+	}
+
+	/**
+	 * public int insert(int k, String i)
+	 *
+	 * Inserts (k, i) as AVLTree.insert does. If k is new, the insert is logged
+	 * first, and the tree is changed only once logging succeeded.
+	 */
+	// complexity: O(logn) + O(1) amortized log writes
+	public int insert(int k, String i) throws IOException {
+		if (contains(k)) {
+			return -1;
+		}
+
+		byte[] bytes = i == null ? null : i.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer payload = ByteBuffer.allocate(1 + 4 + 4 + (bytes == null ? 0 : bytes.length));
+		payload.put(INSERT);
+		payload.putInt(k);
+		payload.putInt(bytes == null ? -1 : bytes.length);
+		if (bytes != null) {
+			payload.put(bytes);
+		}
+		append(payload);
+		return this.tree.insert(k, i);
+	}
+
+	/**
+	 * public int delete(int k)
+	 *
+	 * Deletes k as AVLTree.delete does. If k is in the tree, the delete is logged
+	 * first, and the tree is changed only once logging succeeded.
+	 */
+	// complexity: O(logn) + O(1) amortized log writes
+	public int delete(int k) throws IOException {
+		if (contains(k) == false) {
+			return -1;
+		}
+
+		ByteBuffer payload = ByteBuffer.allocate(1 + 4);
+		payload.put(DELETE);
+		payload.putInt(k);
+		append(payload);
+		return this.tree.delete(k);
+	}
+
+	/**
+	 * public String search(int k)
+	 *
+	 * Returns the info of k, or null if k is not in the tree.
+	 */
+	// complexity: O(logn)
+	public String search(int k) {
+		return this.tree.search(k);
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of items in the tree.
+	 */
+	// complexity: O(1)
+	public int size() {
+		return this.tree.size();
+	}
+
+	/**
+	 * public AVLTree getTree()
+	 *
+	 * Returns the in-memory tree, for queries. It must not be modified directly,
+	 * such changes would not be logged.
+	 */
+	// complexity: O(1)
+	public AVLTree getTree() {
+		return this.tree;
+	}
+
+	/**
+	 * public void sync()
+	 *
+	 * Writes the pending log records and fsyncs the log, making every change so
+	 * far durable.
+	 */
+	// complexity: O(pending records)
+	public void sync() throws IOException {
+		// positional writes from a copy: if this fails, the pending records are still there and a
+		// retry writes them again at the same place
+		ByteBuffer out = this.pending.duplicate();
+		out.flip();
+		long pos = this.logEnd;
+		while (out.hasRemaining()) {
+			pos += this.log.write(out, pos);
+		}
+		this.log.force(false);
+
+		this.logEnd = pos;
+		this.pending.clear();
+		this.unsynced = 0;
+	}
+
+	/**
+	 * public void checkpoint()
+	 *
+	 * Writes the tree to a new snapshot, atomically replaces the old one with it
+	 * and empties the log.
+	 */
+	// complexity: O(n)
+	public void checkpoint() throws IOException {
+		sync();
+
+		Path snapshot = this.dir.resolve(SNAPSHOT_FILE);
+		Path temp = this.dir.resolve(SNAPSHOT_FILE + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			AVLTreeSerializer.write(this.tree, channel);
+			channel.force(true);
+		}
+		Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		// the rename is durable only once the directory is; until then a crash can bring the old
+		// snapshot back, and that one still needs the log
+		syncDirectory();
+
+		// a crash before the truncate replays records the snapshot already holds; that is
+		// harmless, since only changing operations are logged and the last one on each key wins
+		this.log.truncate(0);
+		this.logEnd = 0;
+		this.log.force(true);
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * Syncs and closes the log.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			this.log.close();
+		}
+	}
+
+	// returns true if k is in the tree
+	// complexity: O(logn)
+	private boolean contains(int k) {
+		AVLTree.IAVLNode node = this.tree.ceiling(k);
+		return node != null && node.getKey() == k;
+	}
+
+	// fsyncs the directory, making the files created and renamed in it durable
+	// complexity: O(1)
+	private void syncDirectory() throws IOException {
+		try (FileChannel channel = FileChannel.open(this.dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+	}
+
+	// adds a record with the given payload to the pending log records, syncs every groupCommit records
+	// if the sync fails, the record is taken back out, since the caller will not make its change
+	// complexity: O(record length) amortized
+	private void append(ByteBuffer payload) throws IOException {
+		payload.flip();
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+
+		int needed = RECORD_HEADER + payload.remaining();
+		if (this.pending.remaining() < needed) {
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(this.pending.capacity() * 2, this.pending.position() + needed));
+			this.pending.flip();
+			bigger.put(this.pending);
+			this.pending = bigger;
+		}
+		int start = this.pending.position();
+		this.pending.putInt(payload.remaining());
+		this.pending.putInt((int) crc.getValue());
+		this.pending.put(payload);
+
+		this.unsynced++;
+		if (this.unsynced >= this.groupCommit) {
+			try {
+				sync();
+			} catch (IOException e) {
+				this.pending.position(start);
+				this.unsynced--;
+				throw e;
+			}
+		}
+	}
+
+	// applies the log records to the tree, returns the position after the last complete record
+	// complexity: O(log size)
+	private long replay() throws IOException {
+		long pos = 0;
+		long length = this.log.size();
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+
+		while (pos + RECORD_HEADER <= length) {
+			header.clear();
+			readFully(header, pos);
+			header.flip();
+			int payloadLength = header.getInt();
+			int checksum = header.getInt();
+			if (payloadLength < 5 || pos + RECORD_HEADER + payloadLength > length) {
+				break;
+			}
+
+			ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+			readFully(payload, pos + RECORD_HEADER);
+			payload.flip();
+			CRC32 crc = new CRC32();
+			crc.update(payload.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+
+			byte type = payload.get();
+			int key = payload.getInt();
+			if (type == INSERT) {
+				int infoLength = payload.getInt();
+				String info = null;
+				if (infoLength >= 0) {
+					byte[] bytes = new byte[infoLength];
+					payload.get(bytes);
+					info = new String(bytes, StandardCharsets.UTF_8);
+				}
+				this.tree.insert(key, info);
+			} else if (type == DELETE) {
+				this.tree.delete(key);
+			} else {
+				break;
+			}
+
+			pos += RECORD_HEADER + payloadLength;
+		}
+
+		return pos;
+	}
+
+	// fills buffer from the log, starting at position pos
+	// complexity: O(buffer size)
+	private void readFully(ByteBuffer buffer, long pos) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = this.log.read(buffer, pos);
+			if (read < 0) {
+				throw new IOException("log ended early");
+			}
+			pos += read;
+		}
+	}
+}
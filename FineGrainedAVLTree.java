@@ -0,0 +1,956 @@
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ *
+ * FineGrainedAVLTree
+ *
+ * A concurrent AVL tree of distinct int keys and String infos, after Bronson,
+ * Casper, Chafi and Olukotun, "A Practical Concurrent Binary Search Tree"
+ * (PPoPP 2010). Unlike ConcurrentAVLTree there is no tree-wide lock:
+ *
+ * - search, min and max take no lock at all. They walk down hand-over-hand,
+ *   checking the version of every node they pass; a rotation that moves a node
+ *   down changes its version, so a reader that raced with it retries from the
+ *   last node that is still valid. A reader only waits (spinning, not locking)
+ *   while a rotation of the node it is about to enter is in progress.
+ * - insert and delete lock only the nodes they change: the parent of a new
+ *   leaf, the node they unlink and its parent, and the two or three nodes of
+ *   each rotation. Locks are always taken top-down, so writers cannot deadlock.
+ *
+ * Balance is relaxed: heights are repaired by the writer after its change,
+ * and a tree that no writer is changing is a valid AVL tree. Deleting a node
+ * with two children only clears its info, leaving a routing node that keeps
+ * its key for navigation; routing nodes are unlinked as soon as they have
+ * fewer than two children.
+ *
+ * There are no subtree sizes, so split, join and the order statistics of
+ * AVLTree are not offered; size() is a counter.
+ *
+ */
+
+public class FineGrainedAVLTree {
+
+	// bits of a node`s version: UNLINKED once it left the tree, SHRINKING while a
+	// rotation moves it down; every finished rotation adds VERSION_STEP
+	private static final long UNLINKED = 1L;
+	private static final long SHRINKING = 2L;
+	private static final long VERSION_STEP = 4L;
+
+	// a reader spins this many times on a shrinking node before it starts yielding
+	private static final int SPIN_COUNT = 100;
+
+	// conditions of a node, see condition(); any other value is the height the node should have
+	private static final int UNLINK_REQUIRED = -1;
+	private static final int REBALANCE_REQUIRED = -2;
+	private static final int NOTHING_REQUIRED = -3;
+
+	// results of the attempt* helpers that are not infos
+	private static final Object RETRY = new Object();
+	private static final Object NOT_FOUND = new Object();
+	private static final Object DONE = new Object();
+
+	// stored in place of a null info, a node whose value is null is a routing node
+	private static final Object NULL_INFO = new Object();
+
+	// a node of the tree; key never changes, everything else is read without locks
+	private static final class Node {
+		final int key;
+		volatile int height;
+		volatile long version;
+		volatile Object value;
+		volatile Node parent;
+		volatile Node left;
+		volatile Node right;
+
+		Node(int key, Object value, Node parent) {
+			this.key = key;
+			this.height = 1;
+			this.value = value;
+			this.parent = parent;
+		}
+
+		Node child(boolean left) {
+			return left ? this.left : this.right;
+		}
+
+		void setChild(boolean left, Node child) {
+			if (left) {
+				this.left = child;
+			} else {
+				this.right = child;
+			}
+		}
+
+		// waits until no rotation is moving this node down
+		void waitUntilNotShrinking() {
+			for (int i = 0; (this.version & SHRINKING) != 0; i++) {
+				if (i < SPIN_COUNT) {
+					Thread.onSpinWait();
+				} else {
+					Thread.yield();
+				}
+			}
+		}
+	}
+
+	// fields of FineGrainedAVLTree: the root is the right child of rootHolder, which is never
+	// rotated or unlinked, so its version stays 0
+	private final Node rootHolder;
+	private final LongAdder size;
+
+	// empty tree-constructor
+	public FineGrainedAVLTree() {
+		this.rootHolder = new Node(Integer.MIN_VALUE, null, null);
+		this.size = new LongAdder();
+	}
+
+	// returns true iff a version shows the node is being moved down or has left the tree
+	private static boolean isShrinkingOrUnlinked(long version) {
+		return (version & (SHRINKING | UNLINKED)) != 0;
+	}
+
+	private static int height(Node node) {
+		return node == null ? 0 : node.height;
+	}
+
+	// returns the direction from node towards k, the root holder always goes right
+	private boolean goesLeft(Node node, int k) {
+		return node != this.rootHolder && k < node.key;
+	}
+
+	/**
+	 * public String search(int k)
+	 *
+	 * Returns the info of an item with key k if it exists in the tree. otherwise,
+	 * returns null. Takes no lock.
+	 */
+	// complexity: O(logn) without contention
+	public String search(int k) {
+		Object res;
+		do {
+			res = attemptSearch(k, this.rootHolder, 0);
+		} while (res == RETRY);
+		return res == NOT_FOUND ? null : info(res);
+	}
+
+	// searches k below node, which had version nodeVersion; returns the value, NOT_FOUND,
+	// or RETRY if node changed, in which case the caller re-reads its own child
+	// complexity: O(logn) without contention
+	private Object attemptSearch(int k, Node node, long nodeVersion) {
+		while (true) {
+			boolean left = goesLeft(node, k);
+			Node child = node.child(left);
+			if (child == null) {
+				return node.version != nodeVersion ? RETRY : NOT_FOUND;
+			}
+			if (child.key == k) {
+				// a routing or unlinked node holds null, k is not in the tree at this moment
+				Object value = child.value;
+				return value == null ? NOT_FOUND : value;
+			}
+
+			long childVersion = child.version;
+			if (isShrinkingOrUnlinked(childVersion)) {
+				child.waitUntilNotShrinking();
+				if (node.version != nodeVersion) {
+					return RETRY;
+				}
+				continue;
+			}
+			if (child != node.child(left)) {
+				if (node.version != nodeVersion) {
+					return RETRY;
+				}
+				continue;
+			}
+			if (node.version != nodeVersion) {
+				return RETRY;
+			}
+
+			Object res = attemptSearch(k, child, childVersion);
+			if (res != RETRY) {
+				return res;
+			}
+		}
+	}
+
+	/**
+	 * public String min()
+	 *
+	 * Returns the info of the item with the smallest key in the tree, or null if
+	 * the tree is empty. Takes no lock.
+	 */
+	// complexity: O(logn) without contention
+	public String min() {
+		return edge(true);
+	}
+
+	/**
+	 * public String max()
+	 *
+	 * Returns the info of the item with the largest key in the tree, or null if the
+	 * tree is empty. Takes no lock.
+	 */
+	// complexity: O(logn) without contention
+	public String max() {
+		return edge(false);
+	}
+
+	// returns the info of the smallest (or largest) key
+	private String edge(boolean smallest) {
+		Object res = edgeValue(smallest);
+		return res == NOT_FOUND ? null : info(res);
+	}
+
+	// returns the value of the smallest (or largest) key, NOT_FOUND if the tree is empty
+	// complexity: O(logn) without contention
+	private Object edgeValue(boolean smallest) {
+		Object res;
+		do {
+			res = attemptEdgeBelow(this.rootHolder, 0, false, smallest);
+		} while (res == RETRY);
+		return res;
+	}
+
+	// returns the first value, in the order given by smallest, in the subtree of node;
+	// NOT_FOUND if it only has routing nodes, RETRY if node changed
+	// complexity: O(logn) without contention
+	private Object attemptEdge(Node node, long nodeVersion, boolean smallest) {
+		Object res = attemptEdgeBelow(node, nodeVersion, smallest, smallest);
+		if (res != NOT_FOUND) {
+			return res;
+		}
+
+		// the near subtree is empty or only routes, then node itself, then the far subtree
+		Object value = node.value;
+		if (node.version != nodeVersion) {
+			return RETRY;
+		}
+		if (value != null) {
+			return value;
+		}
+		return attemptEdgeBelow(node, nodeVersion, smallest == false, smallest);
+	}
+
+	// attemptEdge for the child of node on side left
+	private Object attemptEdgeBelow(Node node, long nodeVersion, boolean left, boolean smallest) {
+		while (true) {
+			Node child = node.child(left);
+			if (child == null) {
+				return node.version != nodeVersion ? RETRY : NOT_FOUND;
+			}
+
+			long childVersion = child.version;
+			if (isShrinkingOrUnlinked(childVersion)) {
+				child.waitUntilNotShrinking();
+				if (node.version != nodeVersion) {
+					return RETRY;
+				}
+				continue;
+			}
+			if (child != node.child(left)) {
+				if (node.version != nodeVersion) {
+					return RETRY;
+				}
+				continue;
+			}
+			if (node.version != nodeVersion) {
+				return RETRY;
+			}
+
+			Object res = attemptEdge(child, childVersion, smallest);
+			if (res != RETRY) {
+				return res;
+			}
+		}
+	}
+
+	/**
+	 * public boolean insert(int k, String i)
+	 *
+	 * Inserts an item with key k and info i to the tree. Returns false, and leaves
+	 * the tree unchanged, if an item with key k already exists in the tree. Locks
+	 * the parent of the new node, then the nodes it rebalances.
+	 */
+	// complexity: O(logn) without contention
+	public boolean insert(int k, String i) {
+		Object value = i == null ? NULL_INFO : i;
+		Object res;
+		do {
+			res = attemptInsert(k, value, this.rootHolder, 0);
+		} while (res == RETRY);
+
+		if (res == DONE) {
+			this.size.increment();
+			return true;
+		}
+		return false;
+	}
+
+	// inserts k below node, which had version nodeVersion; returns DONE, NOT_FOUND if k
+	// already exists (there is nothing to insert), or RETRY if node changed
+	// complexity: O(logn) without contention
+	private Object attemptInsert(int k, Object value, Node node, long nodeVersion) {
+		while (true) {
+			boolean left = goesLeft(node, k);
+			Node child = node.child(left);
+			if (node.version != nodeVersion) {
+				return RETRY;
+			}
+
+			if (child == null) {
+				Node damaged = null;
+				boolean inserted = false;
+				synchronized (node) {
+					if (node.version != nodeVersion) {
+						return RETRY;
+					}
+					if (node.child(left) == null) {
+						node.setChild(left, new Node(k, value, node));
+						inserted = true;
+						damaged = fixHeight(node);
+					}
+				}
+				if (inserted) {
+					fixHeightAndRebalance(damaged);
+					return DONE;
+				}
+				// another writer attached a child first, look again
+				continue;
+			}
+
+			if (child.key == k) {
+				Object res = attemptRevive(child, value);
+				if (res != RETRY) {
+					return res;
+				}
+				continue;
+			}
+
+			long childVersion = child.version;
+			if (isShrinkingOrUnlinked(childVersion)) {
+				child.waitUntilNotShrinking();
+				continue;
+			}
+			if (child != node.child(left)) {
+				continue;
+			}
+			if (node.version != nodeVersion) {
+				return RETRY;
+			}
+
+			Object res = attemptInsert(k, value, child, childVersion);
+			if (res != RETRY) {
+				return res;
+			}
+		}
+	}
+
+	// gives the routing node of k its value back; returns NOT_FOUND if node holds a value,
+	// RETRY if it was unlinked meanwhile
+	// complexity: O(1)
+	private Object attemptRevive(Node node, Object value) {
+		synchronized (node) {
+			if ((node.version & UNLINKED) != 0) {
+				return RETRY;
+			}
+			if (node.value != null) {
+				return NOT_FOUND;
+			}
+			node.value = value;
+			return DONE;
+		}
+	}
+
+	/**
+	 * public boolean delete(int k)
+	 *
+	 * Deletes the item with key k from the tree, if it is there. Returns true iff
+	 * an item was deleted. Locks the deleted node and its parent, then the nodes
+	 * it rebalances.
+	 */
+	// complexity: O(logn) without contention
+	public boolean delete(int k) {
+		Object res;
+		do {
+			res = attemptDelete(k, this.rootHolder, 0);
+		} while (res == RETRY);
+
+		if (res == DONE) {
+			this.size.decrement();
+			return true;
+		}
+		return false;
+	}
+
+	// deletes k below node, which had version nodeVersion; returns DONE, NOT_FOUND, or RETRY
+	// complexity: O(logn) without contention
+	private Object attemptDelete(int k, Node node, long nodeVersion) {
+		while (true) {
+			boolean left = goesLeft(node, k);
+			Node child = node.child(left);
+			if (node.version != nodeVersion) {
+				return RETRY;
+			}
+			if (child == null) {
+				return NOT_FOUND;
+			}
+
+			if (child.key == k) {
+				Object res = attemptRemoveNode(node, child);
+				if (res != RETRY) {
+					return res;
+				}
+				continue;
+			}
+
+			long childVersion = child.version;
+			if (isShrinkingOrUnlinked(childVersion)) {
+				child.waitUntilNotShrinking();
+				continue;
+			}
+			if (child != node.child(left)) {
+				continue;
+			}
+			if (node.version != nodeVersion) {
+				return RETRY;
+			}
+
+			Object res = attemptDelete(k, child, childVersion);
+			if (res != RETRY) {
+				return res;
+			}
+		}
+	}
+
+	// removes the value of node, the child of parent: a node with two children becomes a
+	// routing node, any other node is unlinked; returns DONE, NOT_FOUND or RETRY
+	// complexity: O(logn) for the rebalancing
+	private Object attemptRemoveNode(Node parent, Node node) {
+		if (node.value == null) {
+			return NOT_FOUND;
+		}
+
+		Node damaged;
+		if (node.left != null && node.right != null) {
+			synchronized (node) {
+				if ((node.version & UNLINKED) != 0) {
+					return RETRY;
+				}
+				if (node.value == null) {
+					return NOT_FOUND;
+				}
+				node.value = null;
+				// a child may have left since we looked, then the routing node goes too
+				damaged = node.left == null || node.right == null ? node : null;
+			}
+		} else {
+			synchronized (parent) {
+				if ((parent.version & UNLINKED) != 0 || node.parent != parent) {
+					return RETRY;
+				}
+				synchronized (node) {
+					if (node.value == null) {
+						return NOT_FOUND;
+					}
+					if (unlink(parent, node) == false) {
+						// node got a second child meanwhile
+						return RETRY;
+					}
+				}
+				damaged = fixHeight(parent);
+			}
+		}
+
+		fixHeightAndRebalance(damaged);
+		return DONE;
+	}
+
+	// splices node, which has at most one child, out from under parent; both must be locked
+	// returns false if the links are not as expected any more
+	// complexity: O(1)
+	private static boolean unlink(Node parent, Node node) {
+		Node parentLeft = parent.left;
+		if (parentLeft != node && parent.right != node) {
+			return false;
+		}
+		Node left = node.left;
+		Node right = node.right;
+		if (left != null && right != null) {
+			return false;
+		}
+
+		Node splice = left != null ? left : right;
+		if (parentLeft == node) {
+			parent.left = splice;
+		} else {
+			parent.right = splice;
+		}
+		if (splice != null) {
+			splice.parent = parent;
+		}
+
+		node.version = UNLINKED;
+		node.value = null;
+		return true;
+	}
+
+	// returns what node needs: UNLINK_REQUIRED, REBALANCE_REQUIRED, NOTHING_REQUIRED,
+	// or the height it should have
+	// complexity: O(1)
+	private static int condition(Node node) {
+		Node left = node.left;
+		Node right = node.right;
+		if ((left == null || right == null) && node.value == null) {
+			return UNLINK_REQUIRED;
+		}
+
+		int h = node.height;
+		int hL = height(left);
+		int hR = height(right);
+		int hRepl = 1 + Math.max(hL, hR);
+		if (hL - hR < -1 || hL - hR > 1) {
+			return REBALANCE_REQUIRED;
+		}
+		return h != hRepl ? hRepl : NOTHING_REQUIRED;
+	}
+
+	// fixes the height of node, which must be locked; returns the node to look at next, or null
+	// complexity: O(1)
+	private static Node fixHeight(Node node) {
+		int c = condition(node);
+		switch (c) {
+		case REBALANCE_REQUIRED:
+		case UNLINK_REQUIRED:
+			return node;
+		case NOTHING_REQUIRED:
+			return null;
+		default:
+			node.height = c;
+			return node.parent;
+		}
+	}
+
+	// repairs heights, balance and routing nodes from node up, as far as they were damaged
+	// a rotation or unlink reports only its lowest damaged node; the new top of the subtree and
+	// the parent above it may be damaged as well, so they are looked at again afterwards
+	// complexity: O(logn) without contention
+	private void fixHeightAndRebalance(Node node) {
+		ArrayDeque<Node> recheck = null;
+		while (true) {
+			if (node == null || node.parent == null || (node.version & UNLINKED) != 0
+					|| condition(node) == NOTHING_REQUIRED) {
+				if (recheck == null || recheck.isEmpty()) {
+					return;
+				}
+				node = recheck.pop();
+				continue;
+			}
+
+			int c = condition(node);
+			if (c != UNLINK_REQUIRED && c != REBALANCE_REQUIRED) {
+				synchronized (node) {
+					node = fixHeight(node);
+				}
+			} else {
+				Node parent = node.parent;
+				synchronized (parent) {
+					if ((parent.version & UNLINKED) == 0 && node.parent == parent) {
+						boolean left = parent.left == node;
+						Node next;
+						synchronized (node) {
+							next = rebalance(parent, node);
+						}
+						Node top = parent.child(left);
+						if (top != node && next != parent) {
+							if (recheck == null) {
+								recheck = new ArrayDeque<>();
+							}
+							recheck.push(parent);
+							if (top != null && top != next) {
+								recheck.push(top);
+							}
+						}
+						node = next;
+					}
+					// otherwise node moved, look at it again
+				}
+			}
+		}
+	}
+
+	// unlinks or rotates node, the child of parent, both locked; returns the node to look at next
+	// complexity: O(1)
+	private Node rebalance(Node parent, Node node) {
+		Node left = node.left;
+		Node right = node.right;
+		if ((left == null || right == null) && node.value == null) {
+			return unlink(parent, node) ? fixHeight(parent) : node;
+		}
+
+		int h = node.height;
+		int hL = height(left);
+		int hR = height(right);
+		int hRepl = 1 + Math.max(hL, hR);
+		if (hL - hR > 1) {
+			return rebalanceToRight(parent, node, left, hR);
+		}
+		if (hL - hR < -1) {
+			return rebalanceToLeft(parent, node, right, hL);
+		}
+		if (hRepl != h) {
+			node.height = hRepl;
+			return parent;
+		}
+		return null;
+	}
+
+	// node is too high on the left: rotates right, or left-right if the left child leans right
+	// complexity: O(1)
+	private Node rebalanceToRight(Node parent, Node node, Node left, int hR) {
+		synchronized (left) {
+			int hL = left.height;
+			if (hL - hR <= 1) {
+				return node;
+			}
+			Node leftRight = left.right;
+			int hLL = height(left.left);
+			int hLR = height(leftRight);
+			if (hLL >= hLR) {
+				return rotateRight(parent, node, left, hR, hLL, leftRight, hLR);
+			}
+
+			synchronized (leftRight) {
+				hLR = leftRight.height;
+				if (hLL >= hLR) {
+					return rotateRight(parent, node, left, hR, hLL, leftRight, hLR);
+				}
+				int hLRL = height(leftRight.left);
+				int balance = hLL - hLRL;
+				if (balance >= -1 && balance <= 1) {
+					return rotateRightOverLeft(parent, node, left, hR, hLL, leftRight, hLRL);
+				}
+			}
+			// the left child would be unbalanced after a double rotation, it must be fixed first
+			return rebalanceToLeft(node, left, leftRight, hLL);
+		}
+	}
+
+	// mirror image of rebalanceToRight
+	// complexity: O(1)
+	private Node rebalanceToLeft(Node parent, Node node, Node right, int hL) {
+		synchronized (right) {
+			int hR = right.height;
+			if (hL - hR >= -1) {
+				return node;
+			}
+			Node rightLeft = right.left;
+			int hRL = height(rightLeft);
+			int hRR = height(right.right);
+			if (hRR >= hRL) {
+				return rotateLeft(parent, node, hL, right, rightLeft, hRL, hRR);
+			}
+
+			synchronized (rightLeft) {
+				hRL = rightLeft.height;
+				if (hRR >= hRL) {
+					return rotateLeft(parent, node, hL, right, rightLeft, hRL, hRR);
+				}
+				int hRLR = height(rightLeft.right);
+				int balance = hRR - hRLR;
+				if (balance >= -1 && balance <= 1) {
+					return rotateLeftOverRight(parent, node, hL, right, rightLeft, hRR, hRLR);
+				}
+			}
+			return rebalanceToRight(node, right, rightLeft, hRR);
+		}
+	}
+
+	// links child in place of node under parent
+	private static void replaceChild(Node parent, Node node, Node child) {
+		if (parent.left == node) {
+			parent.left = child;
+		} else {
+			parent.right = child;
+		}
+		child.parent = parent;
+	}
+
+	// rotates right x-y as we saw at class, with node moving down; parent, node and left are locked
+	// complexity: O(1)
+	private static Node rotateRight(Node parent, Node node, Node left, int hR, int hLL, Node leftRight, int hLR) {
+		long version = node.version;
+		node.version = version | SHRINKING;
+
+		node.left = leftRight;
+		if (leftRight != null) {
+			leftRight.parent = node;
+		}
+		left.right = node;
+		node.parent = left;
+		replaceChild(parent, node, left);
+
+		int hNode = 1 + Math.max(hLR, hR);
+		node.height = hNode;
+		left.height = 1 + Math.max(hLL, hNode);
+
+		node.version = version + VERSION_STEP;
+
+		// report the lowest node that is still damaged
+		if (hLR - hR < -1 || hLR - hR > 1) {
+			return node;
+		}
+		if ((leftRight == null || hR == 0) && node.value == null) {
+			return node;
+		}
+		if (hLL - hNode < -1 || hLL - hNode > 1) {
+			return left;
+		}
+		if (hLL == 0 && left.value == null) {
+			return left;
+		}
+		return fixHeight(parent);
+	}
+
+	// mirror image of rotateRight
+	// complexity: O(1)
+	private static Node rotateLeft(Node parent, Node node, int hL, Node right, Node rightLeft, int hRL, int hRR) {
+		long version = node.version;
+		node.version = version | SHRINKING;
+
+		node.right = rightLeft;
+		if (rightLeft != null) {
+			rightLeft.parent = node;
+		}
+		right.left = node;
+		node.parent = right;
+		replaceChild(parent, node, right);
+
+		int hNode = 1 + Math.max(hL, hRL);
+		node.height = hNode;
+		right.height = 1 + Math.max(hNode, hRR);
+
+		node.version = version + VERSION_STEP;
+
+		if (hRL - hL < -1 || hRL - hL > 1) {
+			return node;
+		}
+		if ((rightLeft == null || hL == 0) && node.value == null) {
+			return node;
+		}
+		if (hRR - hNode < -1 || hRR - hNode > 1) {
+			return right;
+		}
+		if (hRR == 0 && right.value == null) {
+			return right;
+		}
+		return fixHeight(parent);
+	}
+
+	// double rotation: left.right comes up above left and node, which both move down;
+	// parent, node, left and leftRight are locked
+	// complexity: O(1)
+	private static Node rotateRightOverLeft(Node parent, Node node, Node left, int hR, int hLL, Node leftRight,
+			int hLRL) {
+		long version = node.version;
+		long leftVersion = left.version;
+		Node leftRightLeft = leftRight.left;
+		Node leftRightRight = leftRight.right;
+		int hLRR = height(leftRightRight);
+
+		node.version = version | SHRINKING;
+		left.version = leftVersion | SHRINKING;
+
+		node.left = leftRightRight;
+		if (leftRightRight != null) {
+			leftRightRight.parent = node;
+		}
+		left.right = leftRightLeft;
+		if (leftRightLeft != null) {
+			leftRightLeft.parent = left;
+		}
+		leftRight.left = left;
+		left.parent = leftRight;
+		leftRight.right = node;
+		node.parent = leftRight;
+		replaceChild(parent, node, leftRight);
+
+		int hNode = 1 + Math.max(hLRR, hR);
+		node.height = hNode;
+		int hLeft = 1 + Math.max(hLL, hLRL);
+		left.height = hLeft;
+		leftRight.height = 1 + Math.max(hLeft, hNode);
+
+		node.version = version + VERSION_STEP;
+		left.version = leftVersion + VERSION_STEP;
+
+		// a routing node left with one child goes now, leftRight and left are both locked
+		if ((leftRightLeft == null || hLL == 0) && left.value == null) {
+			unlink(leftRight, left);
+			hLeft = height(leftRight.left);
+			leftRight.height = 1 + Math.max(hLeft, hNode);
+		}
+
+		if (hLRR - hR < -1 || hLRR - hR > 1) {
+			return node;
+		}
+		if ((leftRightRight == null || hR == 0) && node.value == null) {
+			return node;
+		}
+		if (hLeft - hNode < -1 || hLeft - hNode > 1) {
+			return leftRight;
+		}
+		return fixHeight(parent);
+	}
+
+	// mirror image of rotateRightOverLeft
+	// complexity: O(1)
+	private static Node rotateLeftOverRight(Node parent, Node node, int hL, Node right, Node rightLeft, int hRR,
+			int hRLR) {
+		long version = node.version;
+		long rightVersion = right.version;
+		Node rightLeftLeft = rightLeft.left;
+		Node rightLeftRight = rightLeft.right;
+		int hRLL = height(rightLeftLeft);
+
+		node.version = version | SHRINKING;
+		right.version = rightVersion | SHRINKING;
+
+		node.right = rightLeftLeft;
+		if (rightLeftLeft != null) {
+			rightLeftLeft.parent = node;
+		}
+		right.left = rightLeftRight;
+		if (rightLeftRight != null) {
+			rightLeftRight.parent = right;
+		}
+		rightLeft.right = right;
+		right.parent = rightLeft;
+		rightLeft.left = node;
+		node.parent = rightLeft;
+		replaceChild(parent, node, rightLeft);
+
+		int hNode = 1 + Math.max(hL, hRLL);
+		node.height = hNode;
+		int hRight = 1 + Math.max(hRLR, hRR);
+		right.height = hRight;
+		rightLeft.height = 1 + Math.max(hNode, hRight);
+
+		node.version = version + VERSION_STEP;
+		right.version = rightVersion + VERSION_STEP;
+
+		// a routing node left with one child goes now, rightLeft and right are both locked
+		if ((rightLeftRight == null || hRR == 0) && right.value == null) {
+			unlink(rightLeft, right);
+			hRight = height(rightLeft.right);
+			rightLeft.height = 1 + Math.max(hNode, hRight);
+		}
+
+		if (hRLL - hL < -1 || hRLL - hL > 1) {
+			return node;
+		}
+		if ((rightLeftLeft == null || hL == 0) && node.value == null) {
+			return node;
+		}
+		if (hRight - hNode < -1 || hRight - hNode > 1) {
+			return rightLeft;
+		}
+		return fixHeight(parent);
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of items in the tree. While writers are active it is only
+	 * an estimate, as it counts changes that are still in progress.
+	 */
+	// complexity: O(number of threads)
+	public int size() {
+		return (int) this.size.sum();
+	}
+
+	/**
+	 * public boolean empty()
+	 *
+	 * Returns true if and only if the tree holds no item. Takes no lock.
+	 */
+	// complexity: O(logn) without contention
+	public boolean empty() {
+		return edgeValue(true) == NOT_FOUND;
+	}
+
+	/**
+	 * public int[] keysToArray()
+	 *
+	 * Returns a sorted array of all keys. It is exact when no writer is active;
+	 * otherwise keys changed during the call may be missing.
+	 */
+	// complexity: O(n)
+	public int[] keysToArray() {
+		int[] keys = new int[16];
+		int count = 0;
+
+		// in-order walk with an explicit stack of the nodes whose left subtree is being visited
+		Node[] stack = new Node[64];
+		int top = 0;
+		Node node = this.rootHolder.right;
+		int previous = 0;
+		// a rotation during the walk can show a node twice, keys must strictly increase
+		while (node != null || top > 0) {
+			while (node != null) {
+				if (top == stack.length) {
+					stack = Arrays.copyOf(stack, 2 * top);
+				}
+				stack[top++] = node;
+				node = node.left;
+			}
+			node = stack[--top];
+			if (node.value != null && (count == 0 || node.key > previous)) {
+				if (count == keys.length) {
+					keys = Arrays.copyOf(keys, 2 * count);
+				}
+				keys[count++] = node.key;
+				previous = node.key;
+			}
+			node = node.right;
+		}
+		return Arrays.copyOf(keys, count);
+	}
+
+	// checks, while no writer is active, that the tree is ordered, linked both ways, AVL-balanced
+	// with exact heights, and has no routing node that should have been unlinked; returns its
+	// height, used by the tests
+	// complexity: O(n)
+	int checkInvariants() {
+		return check(this.rootHolder.right, this.rootHolder, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	// checkInvariants for the subtree of node, whose keys must be in (lo, hi)
+	private static int check(Node node, Node parent, long lo, long hi) {
+		if (node == null) {
+			return 0;
+		}
+		if (node.parent != parent || node.key <= lo || node.key >= hi || node.version % VERSION_STEP != 0) {
+			throw new IllegalStateException("node " + node.key + " is misplaced");
+		}
+
+		int hL = check(node.left, node, lo, node.key);
+		int hR = check(node.right, node, node.key, hi);
+		if (hL - hR < -1 || hL - hR > 1 || node.height != 1 + Math.max(hL, hR)) {
+			throw new IllegalStateException("node " + node.key + " is not balanced");
+		}
+		if (node.value == null && (node.left == null || node.right == null)) {
+			throw new IllegalStateException("routing node " + node.key + " was not unlinked");
+		}
+		return node.height;
+	}
+
+	// returns the info held by a value
+	private static String info(Object value) {
+		return value == NULL_INFO ? null : (String) value;
+	}
+}
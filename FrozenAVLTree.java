@@ -0,0 +1,183 @@
+
+import java.util.Iterator;
+
+/**
+ *
+ *
+ * FrozenAVLTree
+ *
+ * An immutable snapshot of an AVLTree, made by AVLTree.freeze(), laid out for
+ * fast lookups: the keys are stored in Eytzinger (BFS) order in one int array,
+ * so the first levels of every search share the same few cache lines and the
+ * search loop has no unpredictable branch. The infos live in a parallel array.
+ *
+ * Positions: slot s (1-based, Eytzinger order) has children 2s and 2s+1. The
+ * i-th smallest key (0-based) is called index i.
+ *
+ */
+
+public class FrozenAVLTree {
+
+	// fields of FrozenAVLTree, slot 0 is unused
+	private final int n;
+	private final int[] keys;
+	private final String[] infos;
+	private final int[] indexOfSlot;
+	private final int[] slotOfIndex;
+
+	// builds the snapshot from the in-order walk of tree
+	// complexity: O(n)
+	FrozenAVLTree(AVLTree tree) {
+		this.n = tree.size();
+		this.keys = new int[this.n + 1];
+		this.infos = new String[this.n + 1];
+		this.indexOfSlot = new int[this.n + 1];
+		this.slotOfIndex = new int[this.n];
+
+		fill(tree.iterator(), 1, 0);
+	}
+
+	// fills the subtree of slot in-order from it, the first key getting index, returns the next index
+	// complexity: O(size of the subtree of slot), recursion depth O(logn)
+	private int fill(Iterator<AVLTree.IAVLNode> it, int slot, int index) {
+		if (slot > this.n) {
+			return index;
+		}
+
+		index = fill(it, 2 * slot, index);
+
+		AVLTree.IAVLNode node = it.next();
+		this.keys[slot] = node.getKey();
+		this.infos[slot] = node.getValue();
+		this.indexOfSlot[slot] = index;
+		this.slotOfIndex[index] = slot;
+		index++;
+
+		return fill(it, 2 * slot + 1, index);
+	}
+
+	// returns the slot of the smallest key >= k, or 0 if there is none
+	// walks down to a leaf without branching on the comparison, then climbs back
+	// to the last slot where the walk went left
+	// complexity: O(logn)
+	private int lowerBound(int k) {
+		int slot = 1;
+		while (slot <= this.n) {
+			slot = 2 * slot + (this.keys[slot] < k ? 1 : 0);
+		}
+		return slot >>> (Integer.numberOfTrailingZeros(~slot) + 1);
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of items in the snapshot.
+	 */
+	// complexity: O(1)
+	public int size() {
+		return this.n;
+	}
+
+	/**
+	 * public boolean empty()
+	 *
+	 * Returns true if and only if the snapshot is empty.
+	 */
+	// complexity: O(1)
+	public boolean empty() {
+		return this.n == 0;
+	}
+
+	/**
+	 * public String search(int k)
+	 *
+	 * Returns the info of an item with key k if it exists in the snapshot.
+	 * otherwise, returns null.
+	 */
+	// complexity: O(logn)
+	public String search(int k) {
+		int slot = lowerBound(k);
+		if (slot != 0 && this.keys[slot] == k) {
+			return this.infos[slot];
+		}
+		return null;
+	}
+
+	/**
+	 * public String min()
+	 *
+	 * Returns the info of the item with the smallest key, or null if the snapshot
+	 * is empty.
+	 */
+	// complexity: O(1)
+	public String min() {
+		return this.n == 0 ? null : this.infos[this.slotOfIndex[0]];
+	}
+
+	/**
+	 * public String max()
+	 *
+	 * Returns the info of the item with the largest key, or null if the snapshot
+	 * is empty.
+	 */
+	// complexity: O(1)
+	public String max() {
+		return this.n == 0 ? null : this.infos[this.slotOfIndex[this.n - 1]];
+	}
+
+	/**
+	 * public int rank(int k)
+	 *
+	 * Returns the number of keys in the snapshot that are smaller than k.
+	 */
+	// complexity: O(logn)
+	public int rank(int k) {
+		int slot = lowerBound(k);
+		return slot == 0 ? this.n : this.indexOfSlot[slot];
+	}
+
+	/**
+	 * public int ceilingIndex(int k)
+	 *
+	 * Returns the index of the smallest key >= k, or -1 if there is none.
+	 */
+	// complexity: O(logn)
+	public int ceilingIndex(int k) {
+		int slot = lowerBound(k);
+		return slot == 0 ? -1 : this.indexOfSlot[slot];
+	}
+
+	/**
+	 * public int floorIndex(int k)
+	 *
+	 * Returns the index of the largest key <= k, or -1 if there is none.
+	 */
+	// complexity: O(logn)
+	public int floorIndex(int k) {
+		int slot = lowerBound(k);
+		if (slot == 0) {
+			return this.n - 1;
+		}
+		return this.keys[slot] == k ? this.indexOfSlot[slot] : this.indexOfSlot[slot] - 1;
+	}
+
+	/**
+	 * public int keyAt(int i)
+	 *
+	 * Returns the i-th smallest key (0-based). precondition: 0 <= i < size()
+	 */
+	// complexity: O(1)
+	public int keyAt(int i) {
+		return this.keys[this.slotOfIndex[i]];
+	}
+
+	/**
+	 * public String infoAt(int i)
+	 *
+	 * Returns the info of the i-th smallest key (0-based). precondition: 0 <= i < size()
+	 */
+	// complexity: O(1)
+	public String infoAt(int i) {
+		return this.infos[this.slotOfIndex[i]];
+	}
+}
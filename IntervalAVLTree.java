@@ -0,0 +1,264 @@
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ *
+ * IntervalAVLTree
+ *
+ * An AVLTree of intervals [start, end], keyed by start; as in every AVLTree the
+ * keys are distinct, so there is at most one interval per start. Every node
+ * also keeps the largest end in its subtree. That is the tree`s aggregate (see
+ * AVLTreeAggregate), so the same rotations, size walks and joins that keep the
+ * subtree sizes keep it up, and split, join and subTree hand out interval trees.
+ *
+ * A query skips every subtree whose largest end is before it, and every right
+ * subtree whose starts are all after it.
+ *
+ * insert(k, i), and the AVLTree operations that make nodes from keys alone
+ * (insertAll, join with a node that is not an IntervalNode), add the point
+ * interval [k, k].
+ *
+ */
+
+public class IntervalAVLTree extends AVLTree {
+
+	// the largest end of a subtree, Integer.MIN_VALUE for an empty one
+	private static final AVLTreeAggregate<Integer> MAX_END = new AVLTreeAggregate<Integer>() {
+		@Override
+		public Integer identity() {
+			return Integer.MIN_VALUE;
+		}
+
+		@Override
+		public Integer lift(int key, String info) {
+			return key;
+		}
+
+		@Override
+		public Integer combine(Integer left, Integer right) {
+			return Math.max(left, right);
+		}
+	};
+
+	// the end of the interval insert(start, end, info) is adding, read by createNode; null otherwise
+	private Integer pendingEnd;
+
+	// empty tree-constructor
+	public IntervalAVLTree() {
+		super(MAX_END);
+	}
+
+	/**
+	 * public int insert(int start, int end, String info)
+	 *
+	 * Inserts the interval [start, end] with info to the tree. Returns the number
+	 * of re-balancing operations as AVLTree.insert does, or -1 if an interval with
+	 * this start already exists in the tree.
+	 *
+	 * precondition: start <= end
+	 */
+	// complexity: O(logn)
+	public int insert(int start, int end, String info) {
+		if (end < start) {
+			throw new IllegalArgumentException("end must not be smaller than start");
+		}
+		this.pendingEnd = end;
+		try {
+			return super.insert(start, info);
+		} finally {
+			this.pendingEnd = null;
+		}
+	}
+
+	/**
+	 * public int insert(int k, String i)
+	 *
+	 * Inserts the point interval [k, k], see insert(start, end, info).
+	 */
+	// complexity: O(logn)
+	@Override
+	public int insert(int k, String i) {
+		return insert(k, k, i);
+	}
+
+	/**
+	 * public IntervalNode[] stab(int t)
+	 *
+	 * Returns the intervals that contain t, sorted by start.
+	 */
+	// complexity: O(min(n, (k + 1) logn)) for k results
+	public IntervalNode[] stab(int t) {
+		return overlapping(t, t);
+	}
+
+	/**
+	 * public IntervalNode[] overlapping(int lo, int hi)
+	 *
+	 * Returns the intervals that overlap [lo, hi] (start <= hi and end >= lo),
+	 * sorted by start. Returns an empty array if lo > hi.
+	 */
+	// complexity: O(min(n, (k + 1) logn)) for k results
+	public IntervalNode[] overlapping(int lo, int hi) {
+		List<IntervalNode> res = new ArrayList<>();
+		if (lo <= hi && empty() == false) {
+			ensureSizes();
+			collect(getRoot(), lo, hi, res);
+		}
+		return res.toArray(new IntervalNode[0]);
+	}
+
+	/**
+	 * public IntervalNode[][] stabAll(int[] points)
+	 *
+	 * Returns stab(points[i]) for every i. When the points are dense, i.e. the
+	 * tree has fewer starts between the smallest and the largest point than
+	 * points times the tree`s height, they are found in one walk of the tree: a
+	 * subtree is entered once, with the sorted run of points that can still have
+	 * results in it, so points that share a path share its cost. Otherwise every
+	 * point costs its own search anyway, and stab is called for each.
+	 */
+	// complexity: O(m logm) to sort m points, plus the smaller of O(m logn) and O(logm) per node
+	// visited, plus O(1) per result
+	public IntervalNode[][] stabAll(int[] points) {
+		// sort (point, index) pairs, the index says where the results go
+		long[] order = new long[points.length];
+		for (int i = 0; i < points.length; i++) {
+			order[i] = ((long) points[i] << 32) | i;
+		}
+		Arrays.sort(order);
+
+		IntervalNode[][] arrays = new IntervalNode[points.length][];
+		if (points.length == 0) {
+			return arrays;
+		}
+		int first = (int) (order[0] >> 32);
+		int last = (int) (order[order.length - 1] >> 32);
+		if (empty() || countInRange(first, last) > (long) points.length * getRoot().getHeight()) {
+			for (int i = 0; i < points.length; i++) {
+				arrays[i] = stab(points[i]);
+			}
+			return arrays;
+		}
+
+		List<List<IntervalNode>> res = new ArrayList<>(points.length);
+		for (int i = 0; i < points.length; i++) {
+			res.add(new ArrayList<>());
+		}
+		stabAll(getRoot(), order, 0, order.length, res);
+		for (int i = 0; i < points.length; i++) {
+			arrays[i] = res.get(i).toArray(new IntervalNode[0]);
+		}
+		return arrays;
+	}
+
+	// adds the intervals of the subtree of node that overlap [lo, hi] to res, in start order
+	// complexity: O(min(size of subtree, (k + 1) logn))
+	private void collect(IAVLNode node, int lo, int hi, List<IntervalNode> res) {
+		if (node.isRealNode() == false || maxEnd(node) < lo) {
+			return;
+		}
+
+		collect(node.getLeft(), lo, hi, res);
+		// the right subtree starts after node, so it has nothing if node already starts after hi
+		if (node.getKey() <= hi) {
+			if (((IntervalNode) node).end >= lo) {
+				res.add((IntervalNode) node);
+			}
+			collect(node.getRight(), lo, hi, res);
+		}
+	}
+
+	// adds the intervals of the subtree of node to the results of the sorted points in order[from..to)
+	// complexity: O(logm) per node visited, O(1) per result
+	private void stabAll(IAVLNode node, long[] order, int from, int to, List<List<IntervalNode>> res) {
+		if (node.isRealNode() == false || from >= to) {
+			return;
+		}
+
+		// points after the largest end have no results here
+		to = firstAbove(order, from, to, maxEnd(node));
+		stabAll(node.getLeft(), order, from, to, res);
+
+		// points before node`s start have no results in node or in its right subtree
+		from = firstAbove(order, from, to, node.getKey() - 1L);
+		IntervalNode interval = (IntervalNode) node;
+		for (int i = from; i < to && (int) (order[i] >> 32) <= interval.end; i++) {
+			res.get((int) order[i]).add(interval);
+		}
+		stabAll(node.getRight(), order, from, to, res);
+	}
+
+	// returns the first index in order[from..to) whose point is above bound, or to if there is none
+	// complexity: O(log(to - from))
+	private static int firstAbove(long[] order, int from, int to, long bound) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if ((order[mid] >> 32) <= bound) {
+				from = mid + 1;
+			} else {
+				to = mid;
+			}
+		}
+		return from;
+	}
+
+	// the largest end in the subtree of node
+	private int maxEnd(IAVLNode node) {
+		return (Integer) valueOf(node);
+	}
+
+	// makes an IntervalNode, with the end insert(start, end, info) is adding or as a point interval
+	@Override
+	IAVLNode createNode(int k, String i) {
+		IntervalNode node = new IntervalNode(k, i, this.pendingEnd != null ? this.pendingEnd : k);
+		node.value = node.end;
+		return node;
+	}
+
+	@Override
+	boolean canHold(IAVLNode node) {
+		return node instanceof IntervalNode;
+	}
+
+	@Override
+	Object lift(IAVLNode node) {
+		return ((IntervalNode) node).end;
+	}
+
+	@Override
+	AVLTree newTree() {
+		return new IntervalAVLTree();
+	}
+
+	/**
+	 *
+	 * public static final class IntervalNode
+	 *
+	 * The node of an interval [getKey(), getEnd()]; its aggregate is the largest end
+	 * in its subtree.
+	 */
+	public static final class IntervalNode extends AggregateNode {
+		private final int end;
+
+		IntervalNode(int start, String info, int end) {
+			super(start, info);
+			this.end = end;
+		}
+
+		// returns the end of the node`s interval, its start is the key
+		// complexity: O(1)
+		public int getEnd() {
+			return this.end;
+		}
+
+		@Override
+		AggregateNode copy() {
+			IntervalNode res = new IntervalNode(this.key, this.info, this.end);
+			res.value = this.value;
+			return res;
+		}
+	}
+}
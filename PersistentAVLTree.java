@@ -0,0 +1,420 @@
+
+/**
+ *
+ *
+ * PersistentAVLTree
+ *
+ * An immutable AVL tree of distinct int keys and String infos. insert, delete,
+ * split and join never change a tree: they return a new version that shares
+ * every untouched subtree with the old one, copying only the O(logn) nodes on
+ * the path they change. Old versions stay valid and unchanged.
+ *
+ * A version is therefore its own snapshot, taken in O(1) by keeping a reference
+ * to it. A writer that publishes each new version through a volatile field (or
+ * an AtomicReference) lets any number of readers use the version they read
+ * without locking, for as long as they like.
+ *
+ * The nodes have no parent pointers, which is what makes the sharing possible;
+ * all walks go down from the root and rebalancing is done on the way back up.
+ *
+ */
+
+public class PersistentAVLTree {
+
+	// fields of PersistentAVLTree, null is the empty tree
+	private final Node root;
+
+	// empty tree-constructor
+	public PersistentAVLTree() {
+		this(null);
+	}
+
+	private PersistentAVLTree(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * public boolean empty()
+	 *
+	 * Returns true if and only if the tree is empty.
+	 */
+	// complexity: O(1)
+	public boolean empty() {
+		return this.root == null;
+	}
+
+	/**
+	 * public int size()
+	 *
+	 * Returns the number of items in the tree.
+	 */
+	// complexity: O(1)
+	public int size() {
+		return size(this.root);
+	}
+
+	/**
+	 * public String search(int k)
+	 *
+	 * Returns the info of an item with key k if it exists in the tree. otherwise,
+	 * returns null.
+	 */
+	// complexity: O(logn)
+	public String search(int k) {
+		Node node = this.root;
+		while (node != null) {
+			if (k == node.key) {
+				return node.info;
+			}
+			node = k < node.key ? node.left : node.right;
+		}
+		return null;
+	}
+
+	/**
+	 * public String min()
+	 *
+	 * Returns the info of the item with the smallest key in the tree, or null if
+	 * the tree is empty.
+	 */
+	// complexity: O(logn)
+	public String min() {
+		if (this.root == null) {
+			return null;
+		}
+		Node node = this.root;
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node.info;
+	}
+
+	/**
+	 * public String max()
+	 *
+	 * Returns the info of the item with the largest key in the tree, or null if
+	 * the tree is empty.
+	 */
+	// complexity: O(logn)
+	public String max() {
+		if (this.root == null) {
+			return null;
+		}
+		Node node = this.root;
+		while (node.right != null) {
+			node = node.right;
+		}
+		return node.info;
+	}
+
+	/**
+	 * public PersistentAVLTree insert(int k, String i)
+	 *
+	 * Returns a tree that also holds the item (k, i). If an item with key k
+	 * already exists, returns this tree unchanged.
+	 */
+	// complexity: O(logn) time, O(logn) new nodes
+	public PersistentAVLTree insert(int k, String i) {
+		Node res = insert(this.root, k, i);
+		return res == this.root ? this : new PersistentAVLTree(res);
+	}
+
+	/**
+	 * public PersistentAVLTree delete(int k)
+	 *
+	 * Returns a tree without the item with key k. If there is no such item,
+	 * returns this tree unchanged.
+	 */
+	// complexity: O(logn) time, O(logn) new nodes
+	public PersistentAVLTree delete(int k) {
+		Node res = delete(this.root, k);
+		return res == this.root ? this : new PersistentAVLTree(res);
+	}
+
+	/**
+	 * public PersistentAVLTree[] split(int x)
+	 *
+	 * Returns an array [t1, t2] of two trees with keys(t1) < x < keys(t2). The
+	 * item with key x, if there is one, is in neither. This tree is unchanged.
+	 */
+	// complexity: O(logn)
+	public PersistentAVLTree[] split(int x) {
+		Node[] parts = split(this.root, x);
+		return new PersistentAVLTree[] { new PersistentAVLTree(parts[0]), new PersistentAVLTree(parts[1]) };
+	}
+
+	/**
+	 * public PersistentAVLTree join(int k, String i, PersistentAVLTree t)
+	 *
+	 * Returns a tree holding the items of t, of this tree and the item (k, i).
+	 * Neither t nor this tree is changed.
+	 *
+	 * precondition: keys(t) < k < keys() or keys(t) > k > keys(). t/tree might be
+	 * empty.
+	 */
+	// complexity: O(|tree.rank - t.rank| + 1)
+	public PersistentAVLTree join(int k, String i, PersistentAVLTree t) {
+		boolean tIsSmaller = t.root != null ? t.root.key < k : this.root == null || this.root.key > k;
+		if (tIsSmaller) {
+			return new PersistentAVLTree(join(t.root, k, i, this.root));
+		}
+		return new PersistentAVLTree(join(this.root, k, i, t.root));
+	}
+
+	/**
+	 * public int rank(int k)
+	 *
+	 * Returns the number of keys in the tree that are smaller than k. k does not
+	 * have to be in the tree.
+	 */
+	// complexity: O(logn)
+	public int rank(int k) {
+		int count = 0;
+		Node node = this.root;
+		while (node != null) {
+			if (k <= node.key) {
+				node = node.left;
+			} else {
+				count += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * public int select(int i)
+	 *
+	 * Returns the i-th smallest key in the tree (0-based).
+	 *
+	 * precondition: 0 <= i < size()
+	 */
+	// complexity: O(logn)
+	public int select(int i) {
+		Node node = this.root;
+		while (i != size(node.left)) {
+			if (i < size(node.left)) {
+				node = node.left;
+			} else {
+				i -= size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return node.key;
+	}
+
+	/**
+	 * public int[] keysToArray()
+	 *
+	 * Returns a sorted array which contains all keys in the tree, or an empty
+	 * array if the tree is empty.
+	 */
+	// complexity: O(n)
+	public int[] keysToArray() {
+		int[] keys = new int[size()];
+		fill(this.root, keys, null, 0);
+		return keys;
+	}
+
+	/**
+	 * public String[] infoToArray()
+	 *
+	 * Returns an array which contains all info in the tree, sorted by their
+	 * respective keys, or an empty array if the tree is empty.
+	 */
+	// complexity: O(n)
+	public String[] infoToArray() {
+		String[] infos = new String[size()];
+		fill(this.root, null, infos, 0);
+		return infos;
+	}
+
+	// checks that the tree is ordered and AVL-balanced (ranks and sizes are exact by
+	// construction); returns its rank, -1 for an empty tree, used by the tests
+	// complexity: O(n)
+	int checkInvariants() {
+		check(this.root, Long.MIN_VALUE, Long.MAX_VALUE);
+		return rank(this.root);
+	}
+
+	// checkInvariants for the subtree of node, whose keys must be in (lo, hi)
+	private static void check(Node node, long lo, long hi) {
+		if (node == null) {
+			return;
+		}
+		if (node.key <= lo || node.key >= hi) {
+			throw new IllegalStateException("node " + node.key + " is misplaced");
+		}
+		int diff = rank(node.left) - rank(node.right);
+		if (diff < -1 || diff > 1) {
+			throw new IllegalStateException("node " + node.key + " is not balanced");
+		}
+		check(node.left, lo, node.key);
+		check(node.right, node.key, hi);
+	}
+
+	// in-order walk of node into keys and/or infos from index, returns the next index
+	// complexity: O(size of the subtree), recursion depth O(logn)
+	private static int fill(Node node, int[] keys, String[] infos, int index) {
+		if (node == null) {
+			return index;
+		}
+		index = fill(node.left, keys, infos, index);
+		if (keys != null) {
+			keys[index] = node.key;
+		}
+		if (infos != null) {
+			infos[index] = node.info;
+		}
+		return fill(node.right, keys, infos, index + 1);
+	}
+
+	// the rank of a subtree, -1 for the empty one as for the virtual node of AVLTree
+	private static int rank(Node node) {
+		return node == null ? -1 : node.rank;
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	// returns the subtree of node with (k, i) added, or node itself if k is already in it
+	// complexity: O(logn)
+	private static Node insert(Node node, int k, String i) {
+		if (node == null) {
+			return new Node(k, i, null, null);
+		}
+		if (k == node.key) {
+			return node;
+		}
+		if (k < node.key) {
+			Node left = insert(node.left, k, i);
+			return left == node.left ? node : balance(node.key, node.info, left, node.right);
+		}
+		Node right = insert(node.right, k, i);
+		return right == node.right ? node : balance(node.key, node.info, node.left, right);
+	}
+
+	// returns the subtree of node without k, or node itself if k is not in it
+	// complexity: O(logn)
+	private static Node delete(Node node, int k) {
+		if (node == null) {
+			return null;
+		}
+		if (k < node.key) {
+			Node left = delete(node.left, k);
+			return left == node.left ? node : balance(node.key, node.info, left, node.right);
+		}
+		if (k > node.key) {
+			Node right = delete(node.right, k);
+			return right == node.right ? node : balance(node.key, node.info, node.left, right);
+		}
+
+		if (node.left == null) {
+			return node.right;
+		}
+		if (node.right == null) {
+			return node.left;
+		}
+		// a binary node is replaced by its successor, the minimum of its right subtree
+		Node successor = node.right;
+		while (successor.left != null) {
+			successor = successor.left;
+		}
+		return balance(successor.key, successor.info, node.left, deleteMin(node.right));
+	}
+
+	// returns the subtree of node without its minimum
+	// complexity: O(logn)
+	private static Node deleteMin(Node node) {
+		if (node.left == null) {
+			return node.right;
+		}
+		return balance(node.key, node.info, deleteMin(node.left), node.right);
+	}
+
+	// returns [keys < x, keys > x] of the subtree of node, joining the subtrees cut off on the way down
+	// complexity: O(logn), the joins telescope as in AVLTree.split
+	private static Node[] split(Node node, int x) {
+		if (node == null) {
+			return new Node[2];
+		}
+		if (x < node.key) {
+			Node[] parts = split(node.left, x);
+			parts[1] = join(parts[1], node.key, node.info, node.right);
+			return parts;
+		}
+		if (x > node.key) {
+			Node[] parts = split(node.right, x);
+			parts[0] = join(node.left, node.key, node.info, parts[0]);
+			return parts;
+		}
+		return new Node[] { node.left, node.right };
+	}
+
+	// joins left < k < right: walks down the spine of the higher tree until the ranks are
+	// close, hangs the new node there and rebalances on the way back up
+	// complexity: O(|rank(left) - rank(right)| + 1)
+	private static Node join(Node left, int k, String i, Node right) {
+		if (rank(left) > rank(right) + 1) {
+			return balance(left.key, left.info, left.left, join(left.right, k, i, right));
+		}
+		if (rank(right) > rank(left) + 1) {
+			return balance(right.key, right.info, join(left, k, i, right.left), right.right);
+		}
+		return new Node(k, i, left, right);
+	}
+
+	// returns a new node (k, i) over left and right, rotated if their ranks differ by 2
+	// precondition: |rank(left) - rank(right)| <= 2
+	// complexity: O(1)
+	private static Node balance(int k, String i, Node left, Node right) {
+		int diff = rank(left) - rank(right);
+		if (diff > 1) {
+			if (rank(left.left) >= rank(left.right)) {
+				// single rotation to the right
+				return new Node(left.key, left.info, left.left, new Node(k, i, left.right, right));
+			}
+			// double rotation, left.right becomes the top
+			Node top = left.right;
+			return new Node(top.key, top.info, new Node(left.key, left.info, left.left, top.left),
+					new Node(k, i, top.right, right));
+		}
+		if (diff < -1) {
+			if (rank(right.right) >= rank(right.left)) {
+				// single rotation to the left
+				return new Node(right.key, right.info, new Node(k, i, left, right.left), right.right);
+			}
+			// double rotation, right.left becomes the top
+			Node top = right.left;
+			return new Node(top.key, top.info, new Node(k, i, left, top.left),
+					new Node(right.key, right.info, top.right, right.right));
+		}
+		return new Node(k, i, left, right);
+	}
+
+	/**
+	 *
+	 * private static final class Node
+	 *
+	 * An immutable node; rank and size are computed from the children once, when
+	 * the node is made.
+	 */
+	private static final class Node {
+		private final int key;
+		private final String info;
+		private final Node left;
+		private final Node right;
+		private final int rank;
+		private final int size;
+
+		private Node(int key, String info, Node left, Node right) {
+			this.key = key;
+			this.info = info;
+			this.left = left;
+			this.right = right;
+			this.rank = Math.max(PersistentAVLTree.rank(left), PersistentAVLTree.rank(right)) + 1;
+			this.size = PersistentAVLTree.size(left) + PersistentAVLTree.size(right) + 1;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Steady-state cost of the public AVLTree operations on a tree of size keys
+ * built by inserts in the order of the distribution, which also picks the
+ * looked-up keys (see KeyDistribution). Reports throughput and, through
+ * SampleTime, latency percentiles; add -prof gc for allocation rates.
+ *
+ * Writes keep the size constant: insertDelete adds an absent (odd) key and
+ * removes it again, splitJoin splits at a present key and joins the halves back.
+ * size() and empty() read a field and are not measured.
+ *
+ * The 100M-key trees need about 6 GB of heap, select smaller sizes with
+ * -p size=1000,100000 on smaller machines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AVLTreeBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "10000000", "100000000" })
+	int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM", "ZIPFIAN", "ADVERSARIAL" })
+	KeyDistribution distribution;
+
+	AVLTree tree;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		for (int k : this.distribution.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+		}
+		this.queries = this.distribution.queries(this.size, 43);
+	}
+
+	private int nextKey() {
+		return this.queries[this.next++ & MASK];
+	}
+
+	@Benchmark
+	public String search() {
+		return this.tree.search(nextKey());
+	}
+
+	@Benchmark
+	public String searchMiss() {
+		return this.tree.search(nextKey() + 1);
+	}
+
+	@Benchmark
+	public int insertDelete() {
+		int k = nextKey() + 1;
+		return this.tree.insert(k, INFO) + this.tree.delete(k);
+	}
+
+	@Benchmark
+	public int splitJoin() {
+		int k = nextKey();
+		AVLTree.IAVLNode node = this.tree.ceiling(k);
+		AVLTree[] parts = this.tree.split(k);
+		int cost = parts[0].join(node, parts[1]);
+		this.tree = parts[0];
+		return cost;
+	}
+
+	@Benchmark
+	public String min() {
+		return this.tree.min();
+	}
+
+	@Benchmark
+	public String max() {
+		return this.tree.max();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int[] keysToArray() {
+		return this.tree.keysToArray();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String[] infoToArray() {
+		return this.tree.infoToArray();
+	}
+}
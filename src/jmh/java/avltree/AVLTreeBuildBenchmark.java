@@ -0,0 +1,73 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of growing a tree from empty to size keys by insert, and of shrinking it
+ * back to empty by delete, in the insertion order of the distribution. Unlike
+ * AVLTreeBenchmark, the tree shape changes all the way, so rebalancing patterns
+ * such as the ADVERSARIAL order show up in full. The score is the time for all
+ * size keys; divide by size for the time per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AVLTreeBuildBenchmark {
+
+	private static final String INFO = "info";
+
+	@Param({ "1000", "100000", "10000000", "100000000" })
+	int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM", "ADVERSARIAL" })
+	KeyDistribution distribution;
+
+	int[] keys;
+	AVLTree full;
+
+	@Setup(Level.Trial)
+	public void keys() {
+		this.keys = this.distribution.insertOrder(this.size, 42);
+	}
+
+	@Setup(Level.Invocation)
+	public void fill() {
+		this.full = new AVLTree();
+		for (int k : this.keys) {
+			this.full.insert(k, INFO);
+		}
+	}
+
+	@Benchmark
+	public AVLTree insertAll() {
+		AVLTree tree = new AVLTree();
+		for (int k : this.keys) {
+			tree.insert(k, INFO);
+		}
+		return tree;
+	}
+
+	@Benchmark
+	public AVLTree deleteAll() {
+		for (int k : this.keys) {
+			this.full.delete(k);
+		}
+		return this.full;
+	}
+}
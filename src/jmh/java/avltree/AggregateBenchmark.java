@@ -0,0 +1,102 @@
+package avltree;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The sum of the keys in a range of a tenth of the keys, from a random start:
+ * aggregate(lo, hi) on a tree that keeps AVLTreeAggregate.keySum(), against
+ * folding the range through the iterator and folding keysToArray.
+ *
+ * insertDelete* measure what keeping the aggregate costs the writers: a new key
+ * is inserted and deleted again, on a tree with and one without the aggregate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AggregateBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	AVLTree plain;
+	AVLTree summed;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.plain = new AVLTree();
+		this.summed = new AVLTree(AVLTreeAggregate.keySum());
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.plain.insert(k, INFO);
+			this.summed.insert(k, INFO);
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	// keys are the even numbers below 2 * size, so a range of size / 5 holds a tenth of them
+	private int width() {
+		return this.size / 5;
+	}
+
+	@Benchmark
+	public long aggregate() {
+		int lo = this.queries[this.next++ & MASK];
+		Long sum = this.summed.aggregate(lo, lo + width());
+		return sum;
+	}
+
+	@Benchmark
+	public long foldIterator() {
+		int lo = this.queries[this.next++ & MASK];
+		long sum = 0;
+		for (Iterator<AVLTree.IAVLNode> it = this.plain.iterator(lo, lo + width(), true); it.hasNext();) {
+			sum += it.next().getKey();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long foldArray() {
+		int lo = this.queries[this.next++ & MASK];
+		int hi = lo + width();
+		long sum = 0;
+		for (int k : this.plain.keysToArray()) {
+			if (k >= lo && k <= hi) {
+				sum += k;
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int insertDeletePlain() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return this.plain.insert(k, INFO) + this.plain.delete(k);
+	}
+
+	@Benchmark
+	public int insertDeleteAggregate() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return this.summed.insert(k, INFO) + this.summed.delete(k);
+	}
+}
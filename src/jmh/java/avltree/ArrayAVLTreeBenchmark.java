@@ -0,0 +1,131 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ArrayAVLTree against AVLTree on the same keys and queries: search,
+ * insert-and-delete of an absent key, and split-and-join. Both trees are built
+ * in the insertion order of the distribution. Use -prof gc to compare
+ * allocation; the heap each tree takes is printed by main().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ArrayAVLTreeBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "10000000" })
+	int size;
+
+	@Param({ "RANDOM", "ZIPFIAN" })
+	KeyDistribution distribution;
+
+	AVLTree objects;
+	ArrayAVLTree arrays;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.objects = new AVLTree();
+		this.arrays = new ArrayAVLTree(this.size);
+		for (int k : this.distribution.insertOrder(this.size, 42)) {
+			this.objects.insert(k, INFO);
+			this.arrays.insert(k, INFO);
+		}
+		this.queries = this.distribution.queries(this.size, 43);
+	}
+
+	private int nextKey() {
+		return this.queries[this.next++ & MASK];
+	}
+
+	@Benchmark
+	public String searchObjects() {
+		return this.objects.search(nextKey());
+	}
+
+	@Benchmark
+	public String searchArrays() {
+		return this.arrays.search(nextKey());
+	}
+
+	@Benchmark
+	public int insertDeleteObjects() {
+		int k = nextKey() + 1;
+		return this.objects.insert(k, INFO) + this.objects.delete(k);
+	}
+
+	@Benchmark
+	public int insertDeleteArrays() {
+		int k = nextKey() + 1;
+		return this.arrays.insert(k, INFO) + this.arrays.delete(k);
+	}
+
+	@Benchmark
+	public int splitJoinObjects() {
+		int k = nextKey();
+		AVLTree[] parts = this.objects.split(k);
+		int cost = parts[0].join(new AVLTree.AVLNode(k, INFO), parts[1]);
+		this.objects = parts[0];
+		return cost;
+	}
+
+	@Benchmark
+	public int splitJoinArrays() {
+		int k = nextKey();
+		ArrayAVLTree[] parts = this.arrays.split(k);
+		int cost = parts[0].join(k, INFO, parts[1]);
+		this.arrays = parts[0];
+		return cost;
+	}
+
+	// prints the heap taken by n keys in each tree, all sharing one info String
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		int[] keys = KeyDistribution.RANDOM.insertOrder(n, 42);
+
+		long before = usedHeap();
+		AVLTree objects = new AVLTree();
+		for (int k : keys) {
+			objects.insert(k, INFO);
+		}
+		long objectBytes = usedHeap() - before;
+		System.out.printf("AVLTree:      %,d bytes, %.1f per key%n", objectBytes, (double) objectBytes / n);
+		objects = null;
+
+		before = usedHeap();
+		ArrayAVLTree arrays = new ArrayAVLTree(n);
+		for (int k : keys) {
+			arrays.insert(k, INFO);
+		}
+		long arrayBytes = usedHeap() - before;
+		System.out.printf("ArrayAVLTree: %,d bytes, %.1f per key%n", arrayBytes, (double) arrayBytes / n);
+		System.out.println(arrays.size() + (objects == null ? 0 : objects.size()));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
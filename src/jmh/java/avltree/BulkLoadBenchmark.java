@@ -0,0 +1,59 @@
+package avltree;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading size sorted keys: the bulk-load constructor, which builds subtrees in
+ * parallel on the common ForkJoinPool, against size calls to insert. The score
+ * is the time for the whole load. Scaling of the bulk load follows the number
+ * of cores; -Djava.util.concurrent.ForkJoinPool.common.parallelism=1 in
+ * jvmArgsAppend shows the sequential build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class BulkLoadBenchmark {
+
+	@Param({ "100000", "1000000", "10000000", "50000000" })
+	int size;
+
+	int[] keys;
+	String[] infos;
+
+	@Setup
+	public void setup() {
+		this.keys = KeyDistribution.SEQUENTIAL.insertOrder(this.size, 42);
+		this.infos = new String[this.size];
+		Arrays.fill(this.infos, "info");
+	}
+
+	@Benchmark
+	public AVLTree bulkLoad() {
+		return new AVLTree(this.keys, this.infos);
+	}
+
+	@Benchmark
+	public AVLTree repeatedInsert() {
+		AVLTree tree = new AVLTree();
+		for (int i = 0; i < this.keys.length; i++) {
+			tree.insert(this.keys[i], this.infos[i]);
+		}
+		return tree;
+	}
+}
@@ -0,0 +1,105 @@
+package avltree;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A shared map under a mix of searches and writes: ConcurrentAVLTree (one
+ * read-write lock around the tree), FineGrainedAVLTree (writers lock only the
+ * nodes they change) and ConcurrentSkipListMap as the reference. The even keys
+ * below 2 * size are loaded and keys are drawn from the same range, so about
+ * half of the searches and writes find their key. A write is an insert or a
+ * delete with equal odds, which keeps the size steady.
+ *
+ * The score is the total throughput of all threads. main runs the benchmark at
+ * 1, 2, 4, 8, 16 and 32 threads; scaling is only meaningful on a machine with
+ * at least that many cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ConcurrencyBenchmark {
+
+	private static final String INFO = "info";
+
+	@Param({ "lock", "fineGrained", "skipList" })
+	String map;
+
+	@Param({ "100", "90", "50" })
+	int readPercent;
+
+	@Param({ "100000" })
+	int size;
+
+	ConcurrentAVLTree lock;
+	FineGrainedAVLTree fineGrained;
+	ConcurrentSkipListMap<Integer, String> skipList;
+
+	@Setup
+	public void setup() {
+		this.lock = new ConcurrentAVLTree();
+		this.fineGrained = new FineGrainedAVLTree();
+		this.skipList = new ConcurrentSkipListMap<>();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			switch (this.map) {
+			case "lock":
+				this.lock.insert(k, INFO);
+				break;
+			case "fineGrained":
+				this.fineGrained.insert(k, INFO);
+				break;
+			default:
+				this.skipList.put(k, INFO);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object operation() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int k = random.nextInt(2 * this.size);
+		int op = random.nextInt(200);
+		boolean read = op < 2 * this.readPercent;
+		boolean insert = (op & 1) == 0;
+		switch (this.map) {
+		case "lock":
+			return read ? this.lock.search(k) : insert ? this.lock.insert(k, INFO) : this.lock.delete(k);
+		case "fineGrained":
+			return read ? this.fineGrained.search(k)
+					: insert ? this.fineGrained.insert(k, INFO) : this.fineGrained.delete(k);
+		default:
+			return read ? this.skipList.get(k) : insert ? this.skipList.putIfAbsent(k, INFO) : this.skipList.remove(k);
+		}
+	}
+
+	// runs every configuration at 1, 2, 4, 8, 16 and 32 threads
+	public static void main(String[] args) throws RunnerException {
+		for (int threads : new int[] { 1, 2, 4, 8, 16, 32 }) {
+			Options options = new OptionsBuilder()
+					.include(ConcurrencyBenchmark.class.getSimpleName())
+					.threads(threads)
+					.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package avltree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Logged changes per second of DurableAVLTree, in a temporary directory on the
+ * default file system: a new key is inserted and deleted again, two log
+ * records, with an fsync every groupCommit records. groupCommit = 1 makes every
+ * change durable before it returns; the larger groups show what batching the
+ * fsyncs buys. memory is the same pair on the plain AVLTree, with no log.
+ *
+ * checkpoint writes the whole tree to a new snapshot, fsyncs it and the
+ * directory, and empties the log.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DurableBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1", "16", "256" })
+	int groupCommit;
+
+	@Param({ "100000" })
+	int size;
+
+	Path dir;
+	DurableAVLTree store;
+	AVLTree memory;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() throws IOException {
+		this.dir = Files.createTempDirectory("durable-benchmark");
+		this.store = new DurableAVLTree(this.dir, this.groupCommit);
+		this.memory = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.store.insert(k, INFO);
+			this.memory.insert(k, INFO);
+		}
+		this.store.checkpoint();
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.store.close();
+		try (Stream<Path> files = Files.walk(this.dir)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	// odd keys are never in the tree
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public int durable() throws IOException {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return this.store.insert(k, INFO) + this.store.delete(k);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public int memory() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return this.memory.insert(k, INFO) + this.memory.delete(k);
+	}
+
+	@Benchmark
+	public DurableAVLTree checkpoint() throws IOException {
+		this.store.checkpoint();
+		return this.store;
+	}
+}
@@ -0,0 +1,116 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read-only lookups on the same keys and queries: the FrozenAVLTree made by
+ * AVLTree.freeze() against the AVLTree it was made from and an ArrayAVLTree
+ * built in the same order (which has no ceiling).
+ *
+ * search*  looks up a key that is in the tree.
+ * miss*    looks up the absent key right after it.
+ * ceiling* finds the smallest key >= the absent key (AVLTree.ceiling against
+ *          FrozenAVLTree.ceilingIndex and keyAt).
+ * rank*    counts the keys below the absent key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FrozenBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "10000000" })
+	int size;
+
+	AVLTree tree;
+	ArrayAVLTree arrays;
+	FrozenAVLTree frozen;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		this.arrays = new ArrayAVLTree(this.size);
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+			this.arrays.insert(k, INFO);
+		}
+		this.frozen = this.tree.freeze();
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@Benchmark
+	public String searchTree() {
+		return this.tree.search(this.queries[this.next++ & MASK]);
+	}
+
+	@Benchmark
+	public String searchArray() {
+		return this.arrays.search(this.queries[this.next++ & MASK]);
+	}
+
+	@Benchmark
+	public String searchFrozen() {
+		return this.frozen.search(this.queries[this.next++ & MASK]);
+	}
+
+	@Benchmark
+	public String missTree() {
+		return this.tree.search(this.queries[this.next++ & MASK] + 1);
+	}
+
+	@Benchmark
+	public String missArray() {
+		return this.arrays.search(this.queries[this.next++ & MASK] + 1);
+	}
+
+	@Benchmark
+	public String missFrozen() {
+		return this.frozen.search(this.queries[this.next++ & MASK] + 1);
+	}
+
+	@Benchmark
+	public int ceilingTree() {
+		AVLTree.IAVLNode node = this.tree.ceiling(this.queries[this.next++ & MASK] + 1);
+		return node == null ? -1 : node.getKey();
+	}
+
+	@Benchmark
+	public int ceilingFrozen() {
+		int i = this.frozen.ceilingIndex(this.queries[this.next++ & MASK] + 1);
+		return i == -1 ? -1 : this.frozen.keyAt(i);
+	}
+
+	@Benchmark
+	public int rankTree() {
+		return this.tree.rank(this.queries[this.next++ & MASK] + 1);
+	}
+
+	@Benchmark
+	public int rankArray() {
+		return this.arrays.rank(this.queries[this.next++ & MASK] + 1);
+	}
+
+	@Benchmark
+	public int rankFrozen() {
+		return this.frozen.rank(this.queries[this.next++ & MASK] + 1);
+	}
+}
@@ -0,0 +1,85 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * insert with one fused descent against the way it used to work: allocate the
+ * node, search for a duplicate, then descend again to find the parent. The old
+ * method is rebuilt from public calls (new AVLNode, search, insert), which is
+ * the same two descents and the same allocation.
+ *
+ * New keys are inserted and deleted again, so the tree keeps its size; the
+ * delete costs the same in both variants. Duplicates leave the tree unchanged.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InsertBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "10000000" })
+	int size;
+
+	AVLTree tree;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	// the insert before the fused descent: a descent to check for a duplicate, then insert`s own
+	// descent; a duplicate also wastes the node that was allocated up front
+	private int twoDescentInsert(int k, String i, Blackhole bh) {
+		if (this.tree.search(k) != null) {
+			bh.consume(new AVLTree.AVLNode(k, i));
+			return -1;
+		}
+		return this.tree.insert(k, i);
+	}
+
+	@Benchmark
+	public int newKey() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return this.tree.insert(k, INFO) + this.tree.delete(k);
+	}
+
+	@Benchmark
+	public int newKeyTwoDescents(Blackhole bh) {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return twoDescentInsert(k, INFO, bh) + this.tree.delete(k);
+	}
+
+	@Benchmark
+	public int duplicate() {
+		return this.tree.insert(this.queries[this.next++ & MASK], INFO);
+	}
+
+	@Benchmark
+	public int duplicateTwoDescents(Blackhole bh) {
+		return twoDescentInsert(this.queries[this.next++ & MASK], INFO, bh);
+	}
+}
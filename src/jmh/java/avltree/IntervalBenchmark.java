@@ -0,0 +1,137 @@
+package avltree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stabbing queries on size intervals with random starts and lengths up to 64:
+ * IntervalAVLTree.stab against scanning every interval, and stabAll for a batch
+ * of BATCH points against BATCH calls of stab. The points of a batch are
+ * scattered over the tree (stabBatch, stabAll) or clustered in a window of
+ * 2 * BATCH keys from a random start (*Clustered), where stabAll walks the tree
+ * once for all of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IntervalBenchmark {
+
+	private static final int BATCH = 256;
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	IntervalAVLTree tree;
+	int[] starts;
+	int[] ends;
+	int[] queries;
+	int[] offsets;
+	int next;
+
+	@Setup
+	public void setup() {
+		// the keys are 0, 2, ..., so the interval starting at k is at k / 2 in starts and ends
+		Random random = new Random(42);
+		this.tree = new IntervalAVLTree();
+		this.starts = new int[this.size];
+		this.ends = new int[this.size];
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.starts[k / 2] = k;
+			this.ends[k / 2] = k + random.nextInt(64);
+			this.tree.insert(k, this.ends[k / 2], "info");
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+		this.offsets = new int[BATCH];
+		for (int q = 0; q < BATCH; q++) {
+			this.offsets[q] = random.nextInt(2 * BATCH);
+		}
+	}
+
+	// BATCH points in a window of 2 * BATCH keys
+	private int[] clustered() {
+		int window = this.queries[this.next++ & MASK];
+		int[] points = new int[BATCH];
+		for (int q = 0; q < BATCH; q++) {
+			points[q] = window + this.offsets[q];
+		}
+		return points;
+	}
+
+	@Benchmark
+	public int stab() {
+		return this.tree.stab(this.queries[this.next++ & MASK]).length;
+	}
+
+	@Benchmark
+	public int scan() {
+		int t = this.queries[this.next++ & MASK];
+		int count = 0;
+		for (int i = 0; i < this.starts.length && this.starts[i] <= t; i++) {
+			if (this.ends[i] >= t) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int stabBatch() {
+		int count = 0;
+		for (int q = 0; q < BATCH; q++) {
+			count += this.tree.stab(this.queries[this.next++ & MASK]).length;
+		}
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int stabAll() {
+		int[] points = new int[BATCH];
+		for (int q = 0; q < BATCH; q++) {
+			points[q] = this.queries[this.next++ & MASK];
+		}
+		int count = 0;
+		for (IntervalAVLTree.IntervalNode[] found : this.tree.stabAll(points)) {
+			count += found.length;
+		}
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int stabBatchClustered() {
+		int count = 0;
+		for (int t : clustered()) {
+			count += this.tree.stab(t).length;
+		}
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int stabAllClustered() {
+		int count = 0;
+		for (IntervalAVLTree.IntervalNode[] found : this.tree.stabAll(clustered())) {
+			count += found.length;
+		}
+		return count;
+	}
+}
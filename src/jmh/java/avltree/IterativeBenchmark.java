@@ -0,0 +1,174 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The loop-based search, keysToArray and split of AVLTree against the recursive
+ * versions they replaced, which are kept below as *Recursive. The recursive
+ * split copies every ancestor into a new AVLNode and wraps every sibling
+ * subtree in a new AVLTree; the loop-based one re-links the ancestors and
+ * allocates only the two result trees and one scratch tree, whatever the
+ * height. main() runs with the GC profiler, compare gc.alloc.rate.norm.
+ *
+ * split* split the tree at a random key and join the two parts back with the
+ * node of the key, which relinks it and allocates nothing, so the tree stays
+ * the same size and the difference between them is the split.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IterativeBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	AVLTree tree;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@Benchmark
+	public String search() {
+		return this.tree.search(this.queries[this.next++ & MASK]);
+	}
+
+	@Benchmark
+	public String searchRecursive() {
+		return searchRecursive(this.tree.getRoot(), this.queries[this.next++ & MASK]).getValue();
+	}
+
+	@Benchmark
+	public int[] keysToArray() {
+		return this.tree.keysToArray();
+	}
+
+	@Benchmark
+	public int[] keysToArrayRecursive() {
+		AVLTree.IAVLNode[] nodes = new AVLTree.IAVLNode[this.tree.size()];
+		nodeToArrayRecursive(this.tree.getRoot(), nodes, 0);
+		int[] keys = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			keys[i] = nodes[i].getKey();
+		}
+		return keys;
+	}
+
+	@Benchmark
+	public AVLTree split() {
+		int k = this.queries[this.next++ & MASK];
+		AVLTree.IAVLNode node = find(this.tree.getRoot(), k);
+		AVLTree[] parts = this.tree.split(k);
+		parts[0].join(node, parts[1]);
+		this.tree = parts[0];
+		return this.tree;
+	}
+
+	@Benchmark
+	public AVLTree splitRecursive() {
+		int k = this.queries[this.next++ & MASK];
+		AVLTree.IAVLNode node = find(this.tree.getRoot(), k);
+		AVLTree[] parts = splitRecursive(this.tree, k);
+		parts[0].join(node, parts[1]);
+		this.tree = parts[0];
+		return this.tree;
+	}
+
+	// the node of k, which split leaves out of both parts
+	private static AVLTree.IAVLNode find(AVLTree.IAVLNode node, int k) {
+		while (node.getKey() != k) {
+			node = node.getKey() > k ? node.getLeft() : node.getRight();
+		}
+		return node;
+	}
+
+	// the recursive search(IAVLNode, int) of AVLTree before it became a loop
+	private static AVLTree.IAVLNode searchRecursive(AVLTree.IAVLNode node, int k) {
+		if (node.isRealNode() == false) {
+			return null;
+		}
+		if (node.getKey() == k) {
+			return node;
+		}
+		if (node.getKey() > k) {
+			return searchRecursive(node.getLeft(), k);
+		} else {
+			return searchRecursive(node.getRight(), k);
+		}
+	}
+
+	// the recursive nodeToArray of AVLTree before it followed successor links
+	private static int nodeToArrayRecursive(AVLTree.IAVLNode node, AVLTree.IAVLNode[] nodes, int index) {
+		if (node.isRealNode() == false) {
+			return index;
+		}
+		index = nodeToArrayRecursive(node.getLeft(), nodes, index);
+		nodes[index] = node;
+		index++;
+		return nodeToArrayRecursive(node.getRight(), nodes, index);
+	}
+
+	// the split of AVLTree before splitUp, with its splitRec
+	private static AVLTree[] splitRecursive(AVLTree tree, int x) {
+		AVLTree.IAVLNode node = searchRecursive(tree.getRoot(), x);
+		AVLTree smaller = node.getLeft().isRealNode() ? new AVLTree(node.getLeft()) : new AVLTree();
+		AVLTree bigger = node.getRight().isRealNode() ? new AVLTree(node.getRight()) : new AVLTree();
+		splitRec(node, smaller, bigger);
+		return new AVLTree[] { smaller, bigger };
+	}
+
+	private static int splitRec(AVLTree.IAVLNode x, AVLTree smaller, AVLTree bigger) {
+		AVLTree.IAVLNode parent = x.getParent();
+		if (parent == null) {
+			return 0;
+		}
+
+		int cost;
+		if (parent.getLeft() == x) {
+			cost = bigger.join(new AVLTree.AVLNode(parent.getKey(), parent.getValue()),
+					parent.getRight().isRealNode() ? new AVLTree(parent.getRight()) : new AVLTree());
+		} else {
+			cost = smaller.join(new AVLTree.AVLNode(parent.getKey(), parent.getValue()),
+					parent.getLeft().isRealNode() ? new AVLTree(parent.getLeft()) : new AVLTree());
+		}
+		return splitRec(parent, smaller, bigger) + cost;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(IterativeBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,132 @@
+package avltree;
+
+import java.util.Random;
+
+/**
+ * Key distributions of the benchmarks. A tree of size n holds the even keys
+ * 0, 2, ..., 2(n-1), so odd keys are always absent. A distribution decides the
+ * order in which the keys are inserted and the stream of keys that are looked
+ * up:
+ *
+ * SEQUENTIAL  inserted in increasing order, looked up in increasing order.
+ * RANDOM      inserted in random order, looked up uniformly at random.
+ * ZIPFIAN     inserted in random order, looked up with Zipfian skew (theta
+ *             0.99, the YCSB default), the hot keys scattered over the tree.
+ * ADVERSARIAL inserted from both ends towards the middle (0, max, 1, max-1,
+ *             ...), which costs about one rotation per insert, most of them
+ *             double rotations; looked up uniformly at random.
+ */
+public enum KeyDistribution {
+	SEQUENTIAL, RANDOM, ZIPFIAN, ADVERSARIAL;
+
+	// length of a query stream, a power of two so streams can be cycled with a mask
+	public static final int QUERIES = 1 << 20;
+
+	private static final double ZIPF_THETA = 0.99;
+
+	/**
+	 * Returns the n keys of a tree of size n, in insertion order.
+	 */
+	public int[] insertOrder(int n, long seed) {
+		int[] keys = new int[n];
+		switch (this) {
+		case SEQUENTIAL:
+			for (int i = 0; i < n; i++) {
+				keys[i] = 2 * i;
+			}
+			break;
+		case ADVERSARIAL:
+			for (int i = 0; i < n; i++) {
+				keys[i] = 2 * ((i & 1) == 0 ? i / 2 : n - 1 - i / 2);
+			}
+			break;
+		default:
+			for (int i = 0; i < n; i++) {
+				keys[i] = 2 * i;
+			}
+			shuffle(keys, new Random(seed));
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns a stream of QUERIES keys of a tree of size n, all present in it.
+	 */
+	public int[] queries(int n, long seed) {
+		Random random = new Random(seed);
+		int[] queries = new int[QUERIES];
+		switch (this) {
+		case SEQUENTIAL:
+			for (int i = 0; i < QUERIES; i++) {
+				queries[i] = 2 * (i % n);
+			}
+			break;
+		case ZIPFIAN:
+			Zipf zipf = new Zipf(n, ZIPF_THETA);
+			for (int i = 0; i < QUERIES; i++) {
+				queries[i] = 2 * scatter(zipf.next(random), n);
+			}
+			break;
+		default:
+			for (int i = 0; i < QUERIES; i++) {
+				queries[i] = 2 * random.nextInt(n);
+			}
+		}
+		return queries;
+	}
+
+	// Fisher-Yates shuffle
+	private static void shuffle(int[] a, Random random) {
+		for (int i = a.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	// maps a popularity rank to an index in [0, n), so the hot ranks are not neighbours
+	private static int scatter(long rank, int n) {
+		long h = rank * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		return (int) Math.floorMod(h, (long) n);
+	}
+
+	// Zipfian ranks in [0, n) without a table, after Gray et al., "Quickly generating
+	// billion-record synthetic databases" (the generator YCSB uses)
+	private static final class Zipf {
+		private final int n;
+		private final double theta;
+		private final double zetan;
+		private final double alpha;
+		private final double eta;
+
+		Zipf(int n, double theta) {
+			this.n = n;
+			this.theta = theta;
+			this.zetan = zeta(n, theta);
+			this.alpha = 1.0 / (1.0 - theta);
+			this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / this.zetan);
+		}
+
+		private static double zeta(long n, double theta) {
+			double sum = 0;
+			for (long i = 1; i <= n; i++) {
+				sum += 1 / Math.pow(i, theta);
+			}
+			return sum;
+		}
+
+		long next(Random random) {
+			double u = random.nextDouble();
+			double uz = u * this.zetan;
+			if (uz < 1) {
+				return 0;
+			}
+			if (uz < 1 + Math.pow(0.5, this.theta)) {
+				return 1;
+			}
+			return Math.min(this.n - 1, (long) (this.n * Math.pow(this.eta * u - this.eta + 1, this.alpha)));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert and delete of a new key on a tree that keeps its subtree sizes
+ * (mode = tracking) and on one that lets them go stale (mode = lazy, see
+ * AVLTree.disableSizeTracking()).
+ *
+ * insertDelete is the timing. countedInsertDelete runs the same writes on a
+ * tree with metrics and reports, per iteration, the writes and the size walks
+ * and size writes (nodes whose size was set) they cost; sizeWrites / writes is
+ * the per-write cost that lazy mode removes. Its own timing includes reading
+ * and resetting the metrics, so it is not the figure to compare.
+ *
+ * rankAfterWrite puts a rank between the insert and the delete. In lazy mode the
+ * rank rebuilds every size in O(n) and tracking is turned off again, which is
+ * what a workload that mixes writes with order statistics pays for lazy sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LazySizeBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "tracking", "lazy" })
+	String mode;
+
+	@Param({ "100000", "1000000" })
+	int size;
+
+	AVLTree tree;
+	AVLTree counted;
+	AVLTreeMetrics metrics;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		this.counted = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+			this.counted.insert(k, INFO);
+		}
+		if (this.mode.equals("lazy")) {
+			this.tree.disableSizeTracking();
+			this.counted.disableSizeTracking();
+		}
+		this.metrics = this.counted.enableMetrics();
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	/**
+	 * The size bookkeeping of countedInsertDelete, summed over an iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class SizeCounters {
+		public long writes;
+		public long sizeWalks;
+		public long sizeWrites;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			this.writes = 0;
+			this.sizeWalks = 0;
+			this.sizeWrites = 0;
+		}
+	}
+
+	@Benchmark
+	public int insertDelete() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		return this.tree.insert(k, INFO) + this.tree.delete(k);
+	}
+
+	@Benchmark
+	public int countedInsertDelete(SizeCounters counters) {
+		int k = this.queries[this.next++ & MASK] + 1;
+		int res = this.counted.insert(k, INFO) + this.counted.delete(k);
+		long walks = this.metrics.getSizeWalks();
+		counters.writes += 2;
+		counters.sizeWalks += walks;
+		counters.sizeWrites += Math.round(this.metrics.getMeanSizeWalk() * walks);
+		this.metrics.reset();
+		return res;
+	}
+
+	@Benchmark
+	public int rankAfterWrite() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		int res = this.tree.insert(k, INFO) + this.tree.rank(k) + this.tree.delete(k);
+		if (this.mode.equals("lazy")) {
+			this.tree.disableSizeTracking();
+		}
+		return res;
+	}
+}
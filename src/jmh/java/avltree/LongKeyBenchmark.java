@@ -0,0 +1,91 @@
+package avltree;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups by long id: LongArrayAVLTree against a TreeMap<Long, String>, which
+ * boxes every key it is asked for, and against ArrayAVLTree on the int keys the
+ * ids were made from, for what the wider key costs. The ids are the keys of the
+ * distribution shifted past the int range, so they keep its order.
+ *
+ * insertDelete* insert and delete the absent id right after a present one, use
+ * -prof gc to see what the boxed keys and TreeMap entries allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LongKeyBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	ArrayAVLTree ints;
+	LongArrayAVLTree longs;
+	TreeMap<Long, String> boxed;
+	int[] queries;
+	int next;
+
+	private static long id(int k) {
+		return ((long) k << 32) + 1;
+	}
+
+	@Setup
+	public void setup() {
+		this.ints = new ArrayAVLTree(this.size);
+		this.longs = new LongArrayAVLTree(this.size);
+		this.boxed = new TreeMap<>();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.ints.insert(k, INFO);
+			this.longs.insert(id(k), INFO);
+			this.boxed.put(id(k), INFO);
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@Benchmark
+	public String searchInt() {
+		return this.ints.search(this.queries[this.next++ & MASK]);
+	}
+
+	@Benchmark
+	public String searchLong() {
+		return this.longs.search(id(this.queries[this.next++ & MASK]));
+	}
+
+	@Benchmark
+	public String searchBoxed() {
+		return this.boxed.get(id(this.queries[this.next++ & MASK]));
+	}
+
+	@Benchmark
+	public int insertDeleteLong() {
+		long id = id(this.queries[this.next++ & MASK] + 1);
+		return this.longs.insert(id, INFO) + this.longs.delete(id);
+	}
+
+	@Benchmark
+	public String insertDeleteBoxed() {
+		long id = id(this.queries[this.next++ & MASK] + 1);
+		this.boxed.put(id, INFO);
+		return this.boxed.remove(id);
+	}
+}
@@ -0,0 +1,115 @@
+package avltree;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AVLTreeMap against java.util.TreeMap and ConcurrentSkipListMap, all used
+ * through NavigableMap, on single-threaded workloads:
+ *
+ * get        a present key.
+ * putRemove  a new key put and removed again.
+ * ceiling    ceilingEntry of an absent key.
+ * subMapScan sums the keys of subMap(k, k + 200), about 100 entries.
+ * subMapSize size() of subMap(k, k + size / 5), a tenth of the map; AVLTreeMap
+ *            counts it from the subtree sizes, the others walk it.
+ * pollPut    pollFirstEntry, then puts the entry back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MapBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+	private static final int SCAN = 200;
+
+	@Param({ "avl", "treeMap", "skipList" })
+	String map;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	NavigableMap<Integer, String> navigable;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		switch (this.map) {
+		case "avl":
+			this.navigable = new AVLTreeMap();
+			break;
+		case "treeMap":
+			this.navigable = new TreeMap<>();
+			break;
+		default:
+			this.navigable = new ConcurrentSkipListMap<>();
+		}
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.navigable.put(k, INFO);
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@Benchmark
+	public String get() {
+		return this.navigable.get(this.queries[this.next++ & MASK]);
+	}
+
+	// odd keys are never in the map
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public String putRemove() {
+		int k = this.queries[this.next++ & MASK] + 1;
+		this.navigable.put(k, INFO);
+		return this.navigable.remove(k);
+	}
+
+	@Benchmark
+	public Map.Entry<Integer, String> ceiling() {
+		return this.navigable.ceilingEntry(this.queries[this.next++ & MASK] + 1);
+	}
+
+	@Benchmark
+	public long subMapScan() {
+		int k = this.queries[this.next++ & MASK];
+		long sum = 0;
+		for (Integer key : this.navigable.subMap(k, true, k + SCAN, false).keySet()) {
+			sum += key;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int subMapSize() {
+		int k = this.queries[this.next++ & MASK];
+		return this.navigable.subMap(k, true, k + this.size / 5, false).size();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public String pollPut() {
+		Map.Entry<Integer, String> first = this.navigable.pollFirstEntry();
+		return this.navigable.put(first.getKey(), first.getValue());
+	}
+}
@@ -0,0 +1,118 @@
+package avltree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Churn at a constant tree size, with and without a node pool (pooled = true
+ * enables one of CAPACITY nodes), to be read from gc.alloc.rate.norm and
+ * gc.count (main() runs with the GC profiler):
+ *
+ * churn      deletes a random key and inserts a new one, so with the pool every
+ *            insert takes the node the delete gave back.
+ * burstChurn deletes BURST random keys, then inserts BURST new ones, as a
+ *            batch expiry followed by refills would; the score is per pair.
+ *
+ * Slot i of the tree holds key 2i or 2i + 1, and a churn replaces one by the
+ * other, so the keys stay distinct and the tree keeps its shape on average.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class NodePoolBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+	private static final int CAPACITY = 1024;
+	private static final int BURST = 256;
+
+	@Param({ "false", "true" })
+	boolean pooled;
+
+	@Param({ "100000", "1000000" })
+	int size;
+
+	AVLTree tree;
+	int[] keys;
+	int[] slots;
+	int[] burst = new int[BURST];
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+		}
+		if (this.pooled) {
+			this.tree.enableNodePool(CAPACITY);
+		}
+
+		this.keys = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			this.keys[i] = 2 * i;
+		}
+		Random random = new Random(43);
+		this.slots = new int[KeyDistribution.QUERIES];
+		for (int i = 0; i < this.slots.length; i++) {
+			this.slots[i] = random.nextInt(this.size);
+		}
+	}
+
+	@Benchmark
+	public int churn() {
+		int slot = this.slots[this.next++ & MASK];
+		int k = this.keys[slot];
+		this.keys[slot] = k ^ 1;
+		return this.tree.delete(k) + this.tree.insert(k ^ 1, INFO);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public int burstChurn() {
+		// a slot can come up twice in a burst, its second delete then misses and adds nothing
+		int pending = 0;
+		int res = 0;
+		for (int i = 0; i < BURST; i++) {
+			int slot = this.slots[this.next++ & MASK];
+			int k = this.keys[slot];
+			if (this.tree.delete(k) != -1) {
+				this.keys[slot] = k ^ 1;
+				this.burst[pending++] = k ^ 1;
+			}
+		}
+		for (int i = 0; i < pending; i++) {
+			res += this.tree.insert(this.burst[i], INFO);
+		}
+		return res;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(NodePoolBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,91 @@
+package avltree;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full scans through the lazy iterator against keysToArray, and a short range
+ * scan (100 keys from a random start) through the iterator against cutting the
+ * same keys out of keysToArray. Run with -prof gc: the iterator scans should
+ * allocate only the iterator itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ScanBenchmark {
+
+	private static final int RANGE = 100;
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+
+	@Param({ "1000", "100000", "10000000" })
+	int size;
+
+	AVLTree tree;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, "info");
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@Benchmark
+	public long fullScanIterator() {
+		long sum = 0;
+		for (Iterator<AVLTree.IAVLNode> it = this.tree.iterator(); it.hasNext();) {
+			sum += it.next().getKey();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long fullScanArray() {
+		long sum = 0;
+		for (int k : this.tree.keysToArray()) {
+			sum += k;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long rangeScanIterator() {
+		int from = this.queries[this.next++ & MASK];
+		long sum = 0;
+		Iterator<AVLTree.IAVLNode> it = this.tree.iterator(from, Integer.MAX_VALUE, true);
+		for (int i = 0; i < RANGE && it.hasNext(); i++) {
+			sum += it.next().getKey();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long rangeScanArray() {
+		int from = this.queries[this.next++ & MASK];
+		int[] keys = this.tree.keysToArray();
+		int start = this.tree.rank(from);
+		long sum = 0;
+		for (int i = start; i < start + RANGE && i < keys.length; i++) {
+			sum += keys[i];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,137 @@
+package avltree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Garbage of split and join, to be read from gc.alloc.rate.norm (main() runs
+ * with the GC profiler). Every benchmark splits the tree and joins it back, so
+ * the tree is the same size after every invocation:
+ *
+ * splitJoin      splits at a random key and joins the parts back with its node.
+ * splitJoinEdge  splits at the largest key, so one part is empty, and joins
+ *                back with its node, which is linked in as the new maximum.
+ * splitInsertEdge the same split, put back with insert as join used to when a
+ *                side was empty, which allocates a new node.
+ * repartition    cuts the tree into PARTS trees at random keys and joins them
+ *                back in order, as a partition-rebalancing job would; the score
+ *                is per part.
+ *
+ * The nodes are relinked, so split and join allocate only the result trees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SplitJoinBenchmark {
+
+	private static final String INFO = "info";
+	private static final int MASK = KeyDistribution.QUERIES - 1;
+	private static final int PARTS = 16;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	AVLTree tree;
+	int[] queries;
+	int next;
+
+	@Setup
+	public void setup() {
+		this.tree = new AVLTree();
+		for (int k : KeyDistribution.RANDOM.insertOrder(this.size, 42)) {
+			this.tree.insert(k, INFO);
+		}
+		this.queries = KeyDistribution.RANDOM.queries(this.size, 43);
+	}
+
+	@Benchmark
+	public AVLTree splitJoin() {
+		int k = this.queries[this.next++ & MASK];
+		AVLTree.IAVLNode node = find(this.tree.getRoot(), k);
+		AVLTree[] parts = this.tree.split(k);
+		parts[0].join(node, parts[1]);
+		this.tree = parts[0];
+		return this.tree;
+	}
+
+	@Benchmark
+	public AVLTree splitJoinEdge() {
+		int k = 2 * (this.size - 1);
+		AVLTree.IAVLNode node = find(this.tree.getRoot(), k);
+		AVLTree[] parts = this.tree.split(k);
+		parts[0].join(node, parts[1]);
+		this.tree = parts[0];
+		return this.tree;
+	}
+
+	@Benchmark
+	public AVLTree splitInsertEdge() {
+		int k = 2 * (this.size - 1);
+		AVLTree[] parts = this.tree.split(k);
+		parts[0].insert(k, INFO);
+		this.tree = parts[0];
+		return this.tree;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PARTS)
+	public AVLTree repartition() {
+		// cut at PARTS - 1 distinct keys in increasing order, each cut is made in the part left over
+		AVLTree[] parts = new AVLTree[PARTS];
+		AVLTree.IAVLNode[] cuts = new AVLTree.IAVLNode[PARTS - 1];
+		AVLTree rest = this.tree;
+		int step = this.size / PARTS;
+		int offset = this.queries[this.next++ & MASK] / 2 % step;
+		for (int i = 0; i < cuts.length; i++) {
+			int k = 2 * ((i + 1) * step + offset);
+			cuts[i] = find(rest.getRoot(), k);
+			AVLTree[] halves = rest.split(k);
+			parts[i] = halves[0];
+			rest = halves[1];
+		}
+		parts[PARTS - 1] = rest;
+
+		AVLTree res = parts[0];
+		for (int i = 0; i < cuts.length; i++) {
+			res.join(cuts[i], parts[i + 1]);
+		}
+		this.tree = res;
+		return this.tree;
+	}
+
+	// the node of k, which split leaves out of both parts
+	private static AVLTree.IAVLNode find(AVLTree.IAVLNode node, int k) {
+		while (node.getKey() != k) {
+			node = node.getKey() > k ? node.getLeft() : node.getRight();
+		}
+		return node;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(SplitJoinBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,203 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeAggregateTest {
+
+	// a polynomial hash of the items in order: associative but not commutative, so an item
+	// missing, counted twice or combined out of order changes the result
+	record Hash(long h, long p) {
+	}
+
+	static final AVLTreeAggregate<Hash> HASH = new AVLTreeAggregate<Hash>() {
+		@Override
+		public Hash identity() {
+			return new Hash(0, 1);
+		}
+
+		@Override
+		public Hash lift(int key, String info) {
+			return new Hash(31L * key + info.hashCode(), 1_000_003L);
+		}
+
+		@Override
+		public Hash combine(Hash left, Hash right) {
+			return new Hash(left.h() * right.p() + right.h(), left.p() * right.p());
+		}
+	};
+
+	private static Hash fold(Map<Integer, String> items) {
+		Hash res = HASH.identity();
+		for (Map.Entry<Integer, String> e : items.entrySet()) {
+			res = HASH.combine(res, HASH.lift(e.getKey(), e.getValue()));
+		}
+		return res;
+	}
+
+	// compares aggregate(lo, hi) with a fold over the expected items, for the whole tree and many ranges
+	private static void assertAggregates(AVLTree tree, TreeMap<Integer, String> expected, Random random, int range) {
+		TreeAssert.assertTree(tree, expected);
+		assertEquals(fold(expected), tree.aggregate(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		for (int q = 0; q < 50; q++) {
+			int lo = random.nextInt(range + 2) - 1;
+			int hi = lo + random.nextInt(range / 4 + 1);
+			assertEquals(fold(expected.subMap(lo, true, hi, true)), tree.aggregate(lo, hi), "[" + lo + ", " + hi + "]");
+		}
+	}
+
+	@Test
+	void emptyRangesGiveTheIdentity() {
+		AVLTree tree = new AVLTree(HASH);
+		assertEquals(HASH.identity(), tree.aggregate(0, 10));
+		tree.insert(5, "five");
+		assertEquals(HASH.identity(), tree.aggregate(6, 10));
+		assertEquals(HASH.identity(), tree.aggregate(5, 4));
+		assertEquals(HASH.lift(5, "five"), tree.aggregate(5, 5));
+	}
+
+	@Test
+	void treeWithoutAggregateRejectsQueries() {
+		assertThrows(IllegalStateException.class, () -> new AVLTree().aggregate(0, 1));
+		assertThrows(IllegalStateException.class, () -> new AVLTree(HASH).enableNodePool(10));
+	}
+
+	@Test
+	void insertAndDeleteKeepAggregates() {
+		Random random = new Random(1);
+		int range = 1000;
+		AVLTree tree = new AVLTree(HASH);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int op = 0; op < 5000; op++) {
+			int k = random.nextInt(range);
+			if (random.nextInt(3) > 0) {
+				tree.insert(k, "v" + op);
+				expected.putIfAbsent(k, "v" + op);
+			} else {
+				tree.delete(k);
+				expected.remove(k);
+			}
+			if (op % 250 == 0) {
+				assertAggregates(tree, expected, random, range);
+			}
+		}
+		assertAggregates(tree, expected, random, range);
+	}
+
+	@Test
+	void splitJoinAndBatchesKeepAggregates() {
+		Random random = new Random(2);
+		int range = 2000;
+		for (int round = 0; round < 50; round++) {
+			AVLTree tree = new AVLTree(HASH);
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			for (int i = 0; i < 300; i++) {
+				int k = random.nextInt(range);
+				tree.insert(k, "v" + k);
+				expected.putIfAbsent(k, "v" + k);
+			}
+
+			// insertAll and deleteAll split the tree and join it back, building new parts in bulk
+			int[] batch = new int[100];
+			String[] infos = new String[100];
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = random.nextInt(range);
+				infos[i] = "b" + batch[i];
+			}
+			tree.insertAll(batch, infos);
+			for (int i = 0; i < batch.length; i++) {
+				expected.putIfAbsent(batch[i], infos[i]);
+			}
+			assertAggregates(tree, expected, random, range);
+			tree.deleteAll(Arrays.copyOf(batch, 50));
+			for (int i = 0; i < 50; i++) {
+				expected.remove(batch[i]);
+			}
+			assertAggregates(tree, expected, random, range);
+
+			// subTree cuts a range out with two splits and joins the rest
+			int lo = random.nextInt(range);
+			int hi = lo + random.nextInt(range / 4);
+			AVLTree middle = tree.subTree(lo, hi);
+			TreeMap<Integer, String> cut = new TreeMap<>(expected.subMap(lo, true, hi, true));
+			expected.keySet().removeAll(cut.keySet());
+			assertAggregates(tree, expected, random, range);
+			assertAggregates(middle, cut, random, range);
+
+			// split at a key of the tree, then join back with a node from outside the tree
+			if (expected.isEmpty() == false) {
+				Integer x = expected.ceilingKey(random.nextInt(range));
+				if (x == null) {
+					x = expected.firstKey();
+				}
+				AVLTree[] parts = tree.split(x);
+				assertAggregates(parts[0], new TreeMap<>(expected.headMap(x)), random, range);
+				assertAggregates(parts[1], new TreeMap<>(expected.tailMap(x, false)), random, range);
+				parts[0].join(new AVLTree.AVLNode(x, "joined"), parts[1]);
+				expected.put(x, "joined");
+				assertAggregates(parts[0], expected, random, range);
+			}
+		}
+	}
+
+	@Test
+	void copyStaleSizesAndMapWritesKeepAggregates() {
+		Random random = new Random(3);
+		int range = 500;
+		AVLTree tree = new AVLTree(HASH);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k = 0; k < range; k += 2) {
+			tree.insert(k, "v" + k);
+			expected.put(k, "v" + k);
+		}
+
+		AVLTree copy = tree.copy();
+		assertAggregates(copy, new TreeMap<>(expected), random, range);
+
+		// aggregates go stale with the sizes and are rebuilt by the first query
+		tree.disableSizeTracking();
+		for (int k = 1; k < range; k += 4) {
+			tree.insert(k, "s" + k);
+			expected.put(k, "s" + k);
+		}
+		assertEquals(fold(expected), tree.aggregate(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+		// AVLTreeMap replaces infos in place
+		AVLTreeMap map = new AVLTreeMap(tree);
+		for (int k = 0; k < range; k += 6) {
+			map.put(k, "m" + k);
+			expected.put(k, "m" + k);
+		}
+		for (Map.Entry<Integer, String> e : map.entrySet()) {
+			if (e.getKey() % 10 == 0) {
+				e.setValue("e" + e.getKey());
+				expected.put(e.getKey(), "e" + e.getKey());
+			}
+		}
+		assertAggregates(tree, expected, random, range);
+	}
+
+	@Test
+	void bundledAggregates() {
+		AVLTree sums = new AVLTree(AVLTreeAggregate.keySum());
+		AVLTree counts = new AVLTree(AVLTreeAggregate.count());
+		AVLTree lengths = new AVLTree(AVLTreeAggregate.maxInfoLength());
+		for (int k = 1; k <= 100; k++) {
+			String info = "x".repeat(k % 7);
+			sums.insert(k, info);
+			counts.insert(k, info);
+			lengths.insert(k, info);
+		}
+		assertEquals(Long.valueOf(165), sums.aggregate(10, 20));
+		assertEquals(Integer.valueOf(counts.countInRange(7, 93)), counts.aggregate(7, 93));
+		assertEquals(Integer.valueOf(6), lengths.aggregate(1, 100));
+		assertEquals(Integer.valueOf(3), lengths.aggregate(8, 10));
+	}
+}
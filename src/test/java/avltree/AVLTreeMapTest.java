@@ -0,0 +1,179 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeMapTest {
+
+	private static void assertSameRead(NavigableMap<Integer, String> expected, NavigableMap<Integer, String> actual,
+			Random random, int range) {
+		assertEquals(expected, actual);
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+		assertEquals(new ArrayList<>(expected.descendingKeySet()), new ArrayList<>(actual.descendingKeySet()));
+		assertEquals(expected.firstEntry(), actual.firstEntry());
+		assertEquals(expected.lastEntry(), actual.lastEntry());
+		for (int q = 0; q < 20; q++) {
+			int k = random.nextInt(range + 4) - 2;
+			assertEquals(expected.get(k), actual.get(k), "get " + k);
+			assertEquals(expected.containsKey(k), actual.containsKey(k), "containsKey " + k);
+			assertEquals(expected.lowerKey(k), actual.lowerKey(k), "lowerKey " + k);
+			assertEquals(expected.floorKey(k), actual.floorKey(k), "floorKey " + k);
+			assertEquals(expected.ceilingKey(k), actual.ceilingKey(k), "ceilingKey " + k);
+			assertEquals(expected.higherKey(k), actual.higherKey(k), "higherKey " + k);
+		}
+	}
+
+	// applies the same view call to both maps: both must throw IllegalArgumentException, or neither
+	private static List<NavigableMap<Integer, String>> view(NavigableMap<Integer, String> expected,
+			NavigableMap<Integer, String> actual, Function<NavigableMap<Integer, String>, NavigableMap<Integer, String>> call,
+			String description) {
+		NavigableMap<Integer, String> e;
+		try {
+			e = call.apply(expected);
+		} catch (IllegalArgumentException ex) {
+			assertThrows(IllegalArgumentException.class, () -> call.apply(actual), description);
+			return null;
+		}
+		NavigableMap<Integer, String> a = null;
+		try {
+			a = call.apply(actual);
+		} catch (IllegalArgumentException ex) {
+			fail(description + " threw " + ex.getMessage());
+		}
+		return List.of(e, a);
+	}
+
+	@Test
+	void boundsFollowTreeMap() {
+		AVLTreeMap map = new AVLTreeMap();
+		for (int k = -5; k <= 5; k++) {
+			map.put(k, "v" + k);
+		}
+
+		assertTrue(map.tailMap(3, false).headMap(3, false).isEmpty());
+		assertEquals(0, map.tailMap(3, false).headMap(3, false).size());
+		assertThrows(IllegalArgumentException.class, () -> map.headMap(0, true).headMap(1, false));
+		assertThrows(IllegalArgumentException.class, () -> map.headMap(-3, false).tailMap(-3, true));
+
+		// an exclusive bound may sit on the view`s own bound, an inclusive one may not
+		assertEquals(2, map.headMap(0, true).headMap(-2, true).tailMap(-4, false).size());
+		assertEquals(1, map.headMap(0, true).tailMap(0, true).size());
+		assertThrows(IllegalArgumentException.class, () -> map.headMap(0, false).tailMap(0, true));
+		assertThrows(IllegalArgumentException.class, () -> map.subMap(3, 2));
+		assertThrows(IllegalArgumentException.class, () -> map.descendingMap().subMap(2, 3));
+		assertThrows(IllegalArgumentException.class, () -> map.headMap(0).put(0, "zero"));
+
+		// the extreme keys as exclusive bounds
+		map.put(Integer.MIN_VALUE, "min");
+		map.put(Integer.MAX_VALUE, "max");
+		assertEquals(11, map.subMap(Integer.MIN_VALUE, false, Integer.MAX_VALUE, false).size());
+		assertTrue(map.tailMap(Integer.MAX_VALUE, false).isEmpty());
+		assertNull(map.headMap(Integer.MIN_VALUE, false).firstEntry());
+	}
+
+	@Test
+	void nestedViewsMatchTreeMap() {
+		Random random = new Random(1);
+		int range = 60;
+		for (int round = 0; round < 300; round++) {
+			TreeMap<Integer, String> expectedRoot = new TreeMap<>();
+			AVLTreeMap actualRoot = new AVLTreeMap();
+			for (int i = 0; i < 40; i++) {
+				int k = random.nextInt(range);
+				expectedRoot.put(k, "v" + k);
+				actualRoot.put(k, "v" + k);
+			}
+
+			NavigableMap<Integer, String> expected = expectedRoot;
+			NavigableMap<Integer, String> actual = actualRoot;
+			for (int depth = 0; depth < 4; depth++) {
+				int a = random.nextInt(range + 4) - 2;
+				int b = random.nextInt(range + 4) - 2;
+				boolean ai = random.nextBoolean();
+				boolean bi = random.nextBoolean();
+				Function<NavigableMap<Integer, String>, NavigableMap<Integer, String>> call;
+				String description;
+				switch (random.nextInt(4)) {
+				case 0:
+					call = m -> m.headMap(a, ai);
+					description = "headMap(" + a + ", " + ai + ")";
+					break;
+				case 1:
+					call = m -> m.tailMap(a, ai);
+					description = "tailMap(" + a + ", " + ai + ")";
+					break;
+				case 2:
+					call = m -> m.subMap(a, ai, b, bi);
+					description = "subMap(" + a + ", " + ai + ", " + b + ", " + bi + ")";
+					break;
+				default:
+					call = NavigableMap::descendingMap;
+					description = "descendingMap()";
+				}
+
+				List<NavigableMap<Integer, String>> views = view(expected, actual, call, description);
+				if (views == null) {
+					continue;
+				}
+				expected = views.get(0);
+				actual = views.get(1);
+				assertSameRead(expected, actual, random, range);
+			}
+
+			// writes through the innermost view reach the whole map
+			for (int q = 0; q < 10; q++) {
+				int k = random.nextInt(range);
+				NavigableMap<Integer, String> e = expected;
+				NavigableMap<Integer, String> a = actual;
+				switch (random.nextInt(4)) {
+				case 0:
+					// outside the view both throw
+					view(e, a, m -> {
+						m.put(k, "p" + k);
+						return m;
+					}, "put " + k);
+					break;
+				case 1:
+					assertEquals(e.remove(k), a.remove(k));
+					break;
+				case 2:
+					assertEquals(e.pollFirstEntry(), a.pollFirstEntry());
+					break;
+				default:
+					assertEquals(e.pollLastEntry(), a.pollLastEntry());
+				}
+			}
+			assertSameRead(expected, actual, random, range);
+			assertSameRead(expectedRoot, actualRoot, random, range);
+
+			// iterator removal and clear through the view
+			for (Iterator<Map.Entry<Integer, String>> it = actual.entrySet().iterator(); it.hasNext();) {
+				if (it.next().getKey() % 3 == 0) {
+					it.remove();
+				}
+			}
+			expected.keySet().removeIf(k -> k % 3 == 0);
+			assertSameRead(expectedRoot, actualRoot, random, range);
+			expected.clear();
+			actual.clear();
+			assertSameRead(expectedRoot, actualRoot, random, range);
+			TreeAssert.assertStructure(actualRoot.getTree(), true);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeMetricsTest {
+
+	private static AVLTree tree(int n) {
+		AVLTree tree = new AVLTree();
+		for (int k = 0; k < n; k++) {
+			tree.insert(2 * k, "v" + k);
+		}
+		return tree;
+	}
+
+	// every recorded walk goes from the root down, so none visits more nodes than the
+	// tree has levels; two walks recorded as one would show up above that
+	private static void assertNoWalkLongerThan(AVLTreeMetrics metrics, int levels) {
+		long[] histogram = metrics.getSearchPathHistogram();
+		for (int length = levels + 1; length < histogram.length; length++) {
+			assertEquals(0, histogram[length], "walks of " + length + " nodes");
+		}
+	}
+
+	@Test
+	void insertAllRecordsEachWalkOnItsOwn() {
+		AVLTree tree = tree(1000);
+		int levels = tree.getRoot().getHeight() + 1;
+		AVLTreeMetrics metrics = tree.enableMetrics();
+		tree.insertAll(new int[] { 999 }, new String[] { "a" });
+		assertNoWalkLongerThan(metrics, levels);
+	}
+
+	@Test
+	void subTreeRecordsEachWalkOnItsOwn() {
+		AVLTree tree = tree(1000);
+		int levels = tree.getRoot().getHeight() + 1;
+		AVLTreeMetrics metrics = tree.enableMetrics();
+		tree.subTree(600, 1400);
+		assertNoWalkLongerThan(metrics, levels);
+	}
+
+	private static int depth(AVLTree.IAVLNode node) {
+		int depth = 0;
+		for (AVLTree.IAVLNode x = node.getParent(); x != null; x = x.getParent()) {
+			depth++;
+		}
+		return depth;
+	}
+
+	@Test
+	void fingerSearchCountsTheClimb() {
+		AVLTree tree = tree(1000);
+		AVLTree.IAVLNode root = tree.getRoot();
+		AVLTree.IAVLNode before = root.getLeft();
+		while (before.getRight().isRealNode()) {
+			before = before.getRight();
+		}
+		AVLTree.IAVLNode after = root.getRight();
+		while (after.getLeft().isRealNode()) {
+			after = after.getLeft();
+		}
+
+		// neighbours on either side of the root: one step per ancestor up, then down from the root
+		tree.fingerSearch(before.getKey());
+		AVLTreeMetrics metrics = tree.enableMetrics();
+		tree.fingerSearch(after.getKey());
+		assertEquals(1, metrics.getSearches());
+		assertEquals(depth(before) + depth(after) + 1, metrics.getMeanSearchPath());
+	}
+
+	@Test
+	void sortedFingerRunsAreAmortizedConstant() {
+		AVLTree tree = tree(1 << 14);
+		tree.fingerSearch(0);
+		AVLTreeMetrics metrics = tree.enableMetrics();
+		for (int k = 0; k < 1 << 14; k++) {
+			tree.fingerSearch(2 * k);
+		}
+		assertTrue(metrics.getMeanSearchPath() < 4, "mean path " + metrics.getMeanSearchPath());
+
+		AVLTree grown = new AVLTree();
+		metrics = grown.enableMetrics();
+		for (int k = 0; k < 1 << 14; k++) {
+			grown.fingerInsert(k, "v");
+		}
+		assertTrue(metrics.getMeanSearchPath() < 4, "mean path " + metrics.getMeanSearchPath());
+	}
+}
@@ -0,0 +1,93 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeSerializerTest {
+
+	private static byte[] write(AVLTree tree) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AVLTreeSerializer.write(tree, Channels.newChannel(out));
+		return out.toByteArray();
+	}
+
+	private static AVLTree read(byte[] bytes) throws IOException {
+		return AVLTreeSerializer.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+	}
+
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+
+	@Test
+	void roundTrip() throws IOException {
+		Random random = new Random(1);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = new AVLTree();
+		for (int i = 0; i < 2000; i++) {
+			int k = random.nextInt();
+			// null infos, and infos longer than the read buffer
+			String info = i % 7 == 0 ? null : i % 500 == 1 ? "x".repeat(200_000 + i) : "v" + k;
+			tree.insert(k, info);
+			expected.putIfAbsent(k, info);
+		}
+		tree.insert(Integer.MIN_VALUE, "min");
+		expected.put(Integer.MIN_VALUE, "min");
+		tree.insert(Integer.MAX_VALUE, "max");
+		expected.put(Integer.MAX_VALUE, "max");
+
+		TreeAssert.assertTree(read(write(tree)), expected);
+		assertEquals(0, read(write(new AVLTree())).size());
+	}
+
+	@Test
+	void corruptLengthInShortStreamIsEOF() {
+		// one item, key 0, info length 2^31 - 2, and nothing after it: the read must end without
+		// allocating anything near that length
+		byte[] bytes = bytes('A', 'V', 'L', 'T', 0x01, 0x01, 0x00, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		assertThrows(EOFException.class, () -> read(bytes));
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+		assertTrue(allocated < 1 << 20, allocated + " bytes allocated");
+	}
+
+	@Test
+	void corruptStreamsAreIOExceptions() throws IOException {
+		assertThrows(IOException.class, () -> read(bytes('A', 'V', 'L', 'X', 0x01, 0x00)));
+		assertThrows(IOException.class, () -> read(bytes('A', 'V', 'L', 'T', 0x02, 0x00)));
+		// size above Integer.MAX_VALUE
+		assertThrows(IOException.class, () -> read(bytes('A', 'V', 'L', 'T', 0x01, 0x80, 0x80, 0x80, 0x80, 0x08)));
+		// the second key is not above the first
+		assertThrows(IOException.class, () -> read(bytes('A', 'V', 'L', 'T', 0x01, 0x02, 0x00, 0x00, 0x00, 0x00)));
+		// info length varint of 0x7FFFFFFF + 1
+		assertThrows(IOException.class, () -> read(bytes('A', 'V', 'L', 'T', 0x01, 0x01, 0x00, 0x80, 0x80, 0x80, 0x80, 0x08)));
+
+		// every proper prefix of a valid stream is truncated
+		AVLTree tree = new AVLTree();
+		tree.insert(3, "three");
+		tree.insert(-7, null);
+		byte[] valid = write(tree);
+		for (int length = 0; length < valid.length; length++) {
+			byte[] prefix = Arrays.copyOf(valid, length);
+			assertThrows(EOFException.class, () -> read(prefix), "prefix of " + length);
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class AVLTreeTest {
+
+	@Test
+	void emptyTree() {
+		AVLTree tree = new AVLTree();
+		assertEquals(0, tree.size());
+		assertNull(tree.search(1));
+		assertNull(tree.min());
+		assertNull(tree.max());
+		assertEquals(-1, tree.delete(1));
+		assertEquals(0, tree.keysToArray().length);
+		assertEquals(0, tree.infoToArray().length);
+	}
+
+	@Test
+	void randomInsertDeleteMatchesTreeMap() {
+		Random random = new Random(1);
+		for (int round = 0; round < 200; round++) {
+			AVLTree tree = new AVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int range = 1 + random.nextInt(500);
+
+			for (int op = 0; op < 400; op++) {
+				int k = random.nextInt(range) - range / 3;
+				if (random.nextInt(3) > 0) {
+					int res = tree.insert(k, "v" + k);
+					assertEquals(expected.containsKey(k), res == -1, "insert " + k);
+					expected.putIfAbsent(k, "v" + k);
+				} else {
+					int res = tree.delete(k);
+					assertEquals(expected.containsKey(k), res != -1, "delete " + k);
+					expected.remove(k);
+				}
+				assertEquals(expected.get(k), tree.search(k), "search " + k);
+			}
+
+			TreeAssert.assertTree(tree, expected);
+			if (expected.isEmpty() == false) {
+				assertEquals(expected.firstEntry().getValue(), tree.min());
+				assertEquals(expected.lastEntry().getValue(), tree.max());
+			}
+		}
+	}
+
+	@Test
+	void duplicateInsertAllocatesNothing() {
+		AVLTree tree = new AVLTree();
+		AVLNodePool pool = tree.enableNodePool(4);
+		for (int k = 0; k < 100; k++) {
+			tree.insert(k, "v" + k);
+		}
+		long misses = pool.getMisses();
+
+		for (int k = 0; k < 100; k++) {
+			assertEquals(-1, tree.insert(k, "other"));
+			assertEquals("v" + k, tree.search(k));
+		}
+		assertEquals(misses, pool.getMisses(), "a duplicate took a node");
+		assertEquals(0, pool.getHits());
+	}
+
+	@Test
+	void pooledNodeIsClearedAndReused() {
+		AVLTree tree = new AVLTree();
+		AVLNodePool pool = tree.enableNodePool(1);
+		for (int k = 0; k < 50; k++) {
+			tree.insert(k, "v" + k);
+		}
+
+		// an inner node, so delete swaps it with its successor before unlinking it
+		AVLTree.IAVLNode node = tree.getRoot();
+		int k = node.getKey();
+		tree.delete(k);
+		assertEquals(1, pool.getPooled());
+		assertNull(node.getValue());
+		assertEquals(false, node.getLeft().isRealNode());
+		assertEquals(false, node.getRight().isRealNode());
+		assertNull(node.getParent());
+		assertEquals(0, node.getHeight());
+		assertEquals(1, node.getSize());
+
+		// the pool is full, the next deleted node is dropped
+		tree.delete(k + 1);
+		assertEquals(1, pool.getDropped());
+
+		tree.insert(100, "new");
+		assertSame(node, tree.ceiling(100));
+		assertEquals(1, pool.getHits());
+		assertEquals(0, pool.getPooled());
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int i = 0; i < 50; i++) {
+			expected.put(i, "v" + i);
+		}
+		expected.remove(k);
+		expected.remove(k + 1);
+		expected.put(100, "new");
+		TreeAssert.assertTree(tree, expected);
+	}
+
+	@Test
+	void nodePoolChurnMatchesTreeMap() {
+		Random random = new Random(6);
+		int capacity = 16;
+		AVLTree tree = new AVLTree();
+		AVLNodePool pool = tree.enableNodePool(capacity);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+
+		// replay the pool`s bookkeeping: deletes fill it up to capacity, inserts empty it
+		int pooled = 0;
+		long hits = 0;
+		long misses = 0;
+		long dropped = 0;
+		for (int op = 0; op < 20000; op++) {
+			int k = random.nextInt(2000);
+			// runs of inserts and of deletes, so the pool both fills up and runs dry
+			if ((op / 500) % 2 == 0 ? random.nextInt(4) > 0 : random.nextInt(4) == 0) {
+				if (tree.insert(k, "v" + op) != -1) {
+					expected.put(k, "v" + op);
+					if (pooled > 0) {
+						pooled--;
+						hits++;
+					} else {
+						misses++;
+					}
+				}
+			} else if (tree.delete(k) != -1) {
+				expected.remove(k);
+				if (pooled < capacity) {
+					pooled++;
+				} else {
+					dropped++;
+				}
+			}
+			if (op % 2000 == 0) {
+				TreeAssert.assertTree(tree, expected);
+			}
+		}
+
+		TreeAssert.assertTree(tree, expected);
+		List<Integer> keys = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < keys.size(); i++) {
+			assertEquals(keys.get(i), tree.select(i).getKey());
+			assertEquals(i, tree.rank(keys.get(i)));
+		}
+		assertEquals(true, pool.getHits() > 0);
+		assertEquals(hits, pool.getHits());
+		assertEquals(misses, pool.getMisses());
+		assertEquals(true, dropped > 0);
+		assertEquals(dropped, pool.getDropped());
+		assertEquals(pooled, pool.getPooled());
+		assertEquals((double) hits / (hits + misses), pool.getHitRate());
+	}
+
+	@Test
+	void deleteRootUntilEmpty() {
+		Random random = new Random(2);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = TreeAssert.randomTree(random, 300, 0, 1000, expected);
+
+		while (tree.empty() == false) {
+			int k = tree.getRoot().getKey();
+			tree.delete(k);
+			expected.remove(k);
+			TreeAssert.assertTree(tree, expected);
+			tree.insert(k + 100000, "x");
+			tree.delete(k + 100000);
+		}
+	}
+
+	@Test
+	void splitAndJoinBack() {
+		Random random = new Random(3);
+		for (int round = 0; round < 200; round++) {
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			AVLTree tree = TreeAssert.randomTree(random, 1 + random.nextInt(300), -200, 600, expected);
+
+			List<Integer> keys = new ArrayList<>(expected.keySet());
+			int x = keys.get(random.nextInt(keys.size()));
+			AVLTree[] parts = tree.split(x);
+			TreeAssert.assertTree(parts[0], new TreeMap<>(expected.headMap(x)));
+			TreeAssert.assertTree(parts[1], new TreeMap<>(expected.tailMap(x, false)));
+
+			int cost = parts[0].join(new AVLTree.AVLNode(x, "v" + x), parts[1]);
+			TreeAssert.assertTree(parts[0], expected);
+			assertEquals(true, cost >= 1);
+		}
+	}
+
+	@Test
+	void splitAndJoinBackWithTheSplitNode() {
+		Random random = new Random(4);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = TreeAssert.randomTree(random, 500, 0, 2000, expected);
+
+		for (int round = 0; round < 200; round++) {
+			Integer above = expected.ceilingKey(random.nextInt(2000));
+			int x = above == null ? expected.firstKey() : above;
+			AVLTree.IAVLNode node = tree.ceiling(x);
+			AVLTree[] parts = tree.split(x);
+			parts[0].join(node, parts[1]);
+			tree = parts[0];
+			TreeAssert.assertTree(tree, expected);
+		}
+	}
+
+	@Test
+	void splitEmptiesTheTree() {
+		AVLTree tree = new AVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k = 0; k < 100; k++) {
+			tree.insert(k, "v" + k);
+			expected.put(k, "v" + k);
+		}
+		tree.fingerSearch(70);
+
+		AVLTree[] parts = tree.split(50);
+		assertEquals(true, tree.empty());
+		assertEquals(0, tree.size());
+		assertNull(tree.getRoot());
+
+		// the emptied tree is usable again and no longer shares nodes with the parts
+		tree.insert(1000, "x");
+		tree.fingerInsert(1001, "y");
+		assertNull(tree.fingerSearch(70));
+		TreeAssert.assertTree(tree, new TreeMap<>(Map.of(1000, "x", 1001, "y")));
+		TreeAssert.assertTree(parts[0], new TreeMap<>(expected.headMap(50)));
+		TreeAssert.assertTree(parts[1], new TreeMap<>(expected.tailMap(50, false)));
+	}
+
+	@Test
+	void joinWithEmptySides() {
+		AVLTree both = new AVLTree();
+		both.join(new AVLTree.AVLNode(5, "five"), new AVLTree());
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		expected.put(5, "five");
+		TreeAssert.assertTree(both, expected);
+
+		AVLTree right = new AVLTree();
+		for (int k = 10; k < 50; k++) {
+			right.insert(k, "v" + k);
+			expected.put(k, "v" + k);
+		}
+		AVLTree left = new AVLTree();
+		left.join(new AVLTree.AVLNode(5, "five"), right);
+		TreeAssert.assertTree(left, expected);
+
+		left.join(new AVLTree.AVLNode(100, "hundred"), new AVLTree());
+		expected.put(100, "hundred");
+		TreeAssert.assertTree(left, expected);
+	}
+
+	@Test
+	void fingerOperationsMatchTreeMap() {
+		Random random = new Random(5);
+		for (int round = 0; round < 100; round++) {
+			AVLTree tree = new AVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int k = 0;
+
+			// near-sorted keys, mixed with the operations that move or invalidate the finger
+			for (int op = 0; op < 400; op++) {
+				k += random.nextInt(10) == 0 ? -random.nextInt(200) : random.nextInt(4);
+				if (op % 40 == 3) {
+					// join keys above everything, right after a finger that may be the maximum
+					int top = expected.isEmpty() ? k : Math.max(k, expected.lastKey());
+					AVLTree bigger = new AVLTree();
+					bigger.insert(top + 5, "j");
+					tree.join(new AVLTree.AVLNode(top + 2, "j"), bigger);
+					expected.put(top + 2, "j");
+					expected.put(top + 5, "j");
+				}
+				switch (random.nextInt(8)) {
+				case 0:
+					assertEquals(expected.containsKey(k), tree.insert(k, "i" + k) == -1, "insert " + k);
+					expected.putIfAbsent(k, "i" + k);
+					break;
+				case 1:
+					assertEquals(expected.containsKey(k), tree.delete(k) != -1, "delete " + k);
+					expected.remove(k);
+					break;
+				case 2:
+					assertEquals(expected.get(k), tree.fingerSearch(k), "fingerSearch " + k);
+					break;
+				default:
+					assertEquals(expected.containsKey(k), tree.fingerInsert(k, "f" + k) == -1, "fingerInsert " + k);
+					expected.putIfAbsent(k, "f" + k);
+				}
+				assertEquals(expected.get(k), tree.search(k), "search " + k);
+			}
+			TreeAssert.assertTree(tree, expected);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+// ArrayAVLTree runs the algorithms of AVLTree on arrays, so both must return the same counts
+class ArrayAVLTreeTest {
+
+	private static void assertSame(AVLTree expected, ArrayAVLTree actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.empty(), actual.empty());
+		assertArrayEquals(expected.keysToArray(), actual.keysToArray());
+		assertArrayEquals(expected.infoToArray(), actual.infoToArray());
+		assertEquals(expected.min(), actual.min());
+		assertEquals(expected.max(), actual.max());
+	}
+
+	@Test
+	void emptyTree() {
+		ArrayAVLTree tree = new ArrayAVLTree();
+		assertEquals(0, tree.size());
+		assertNull(tree.search(1));
+		assertNull(tree.min());
+		assertNull(tree.max());
+		assertEquals(-1, tree.delete(1));
+		assertEquals(0, tree.keysToArray().length);
+		assertEquals(0, tree.rank(1));
+	}
+
+	@Test
+	void insertAndDeleteCountLikeAVLTree() {
+		Random random = new Random(1);
+		for (int round = 0; round < 100; round++) {
+			AVLTree expected = new AVLTree();
+			ArrayAVLTree tree = new ArrayAVLTree(1);
+			int range = 1 + random.nextInt(1000);
+
+			for (int op = 0; op < 600; op++) {
+				int k = random.nextInt(range) - range / 2;
+				if (random.nextInt(3) > 0) {
+					assertEquals(expected.insert(k, "v" + k), tree.insert(k, "v" + k), "insert " + k);
+				} else {
+					assertEquals(expected.delete(k), tree.delete(k), "delete " + k);
+				}
+				assertEquals(expected.search(k), tree.search(k));
+			}
+			assertSame(expected, tree);
+		}
+	}
+
+	@Test
+	void selectAndRank() {
+		Random random = new Random(2);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		ArrayAVLTree tree = new ArrayAVLTree();
+		for (int i = 0; i < 2000; i++) {
+			int k = random.nextInt(5000);
+			tree.insert(k, "v" + k);
+			expected.put(k, "v" + k);
+		}
+		for (int i = 0; i < 500; i++) {
+			int k = random.nextInt(5000);
+			tree.delete(k);
+			expected.remove(k);
+		}
+
+		List<Integer> keys = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < keys.size(); i++) {
+			assertEquals(keys.get(i), tree.select(i));
+		}
+		for (int k = -1; k <= 5001; k++) {
+			assertEquals(expected.headMap(k).size(), tree.rank(k));
+		}
+	}
+
+	@Test
+	void splitAndJoinCountLikeAVLTree() {
+		Random random = new Random(3);
+		for (int round = 0; round < 200; round++) {
+			AVLTree expected = new AVLTree();
+			ArrayAVLTree tree = new ArrayAVLTree();
+			int n = 1 + random.nextInt(400);
+			for (int i = 0; i < n; i++) {
+				int k = random.nextInt(2000);
+				expected.insert(k, "v" + k);
+				tree.insert(k, "v" + k);
+			}
+
+			int[] keys = expected.keysToArray();
+			int x = keys[random.nextInt(keys.length)];
+			AVLTree[] expectedParts = expected.split(x);
+			ArrayAVLTree[] parts = tree.split(x);
+			assertEquals(0, tree.size());
+			assertSame(expectedParts[0], parts[0]);
+			assertSame(expectedParts[1], parts[1]);
+
+			// a left part never has larger keys, so joining back goes left to right
+			int expectedCost = expectedParts[0].join(new AVLTree.AVLNode(x, "x"), expectedParts[1]);
+			assertEquals(expectedCost, parts[0].join(x, "x", parts[1]));
+			assertEquals(0, parts[1].size());
+			assertSame(expectedParts[0], parts[0]);
+
+			// the free-list hands out the nodes split and delete gave back
+			assertEquals(expectedParts[0].delete(x), parts[0].delete(x));
+			assertEquals(expectedParts[0].insert(x, "again"), parts[0].insert(x, "again"));
+			assertSame(expectedParts[0], parts[0]);
+		}
+	}
+
+	@Test
+	void joinCopiesATreeWithOtherArrays() {
+		ArrayAVLTree left = new ArrayAVLTree();
+		ArrayAVLTree right = new ArrayAVLTree();
+		AVLTree expectedLeft = new AVLTree();
+		AVLTree expectedRight = new AVLTree();
+		for (int k = 0; k < 300; k++) {
+			left.insert(k, "l" + k);
+			expectedLeft.insert(k, "l" + k);
+		}
+		for (int k = 1000; k < 1030; k++) {
+			right.insert(k, "r" + k);
+			expectedRight.insert(k, "r" + k);
+		}
+
+		int expectedCost = expectedRight.join(new AVLTree.AVLNode(500, "m"), expectedLeft);
+		assertEquals(expectedCost, right.join(500, "m", left));
+		assertEquals(0, left.size());
+		assertSame(expectedRight, right);
+
+		// the emptied tree still works on its own arrays
+		left.insert(7, "seven");
+		assertEquals("seven", left.search(7));
+		assertEquals(1, left.size());
+	}
+}
@@ -0,0 +1,65 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class BulkLoadTest {
+
+	private static AVLTree load(int n, TreeMap<Integer, String> expected) {
+		int[] keys = new int[n];
+		String[] infos = new String[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = 3 * i - n;
+			infos[i] = "v" + keys[i];
+			expected.put(keys[i], infos[i]);
+		}
+		return new AVLTree(keys, infos);
+	}
+
+	@Test
+	void smallSizesBuildValidTrees() {
+		for (int n = 0; n < 300; n++) {
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			TreeAssert.assertTree(load(n, expected), expected);
+		}
+	}
+
+	@Test
+	void parallelBuildIsValidAndPerfectlyBalanced() {
+		// well above the parallel threshold, so several levels are built as fork-join tasks
+		int n = 200_000;
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = load(n, expected);
+		TreeAssert.assertTree(tree, expected);
+		assertEquals(32 - Integer.numberOfLeadingZeros(n) - 1, tree.getRoot().getHeight());
+	}
+
+	@Test
+	void loadedTreeKeepsWorking() {
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = load(1000, expected);
+		for (int k = -1000; k < 2000; k += 7) {
+			if (tree.insert(k, "n" + k) != -1) {
+				expected.put(k, "n" + k);
+			}
+		}
+		for (int k = -1000; k < 2000; k += 5) {
+			if (tree.delete(k) != -1) {
+				expected.remove(k);
+			}
+		}
+		TreeAssert.assertTree(tree, expected);
+	}
+
+	@Test
+	void rejectsUnsortedOrMismatchedInput() {
+		assertThrows(IllegalArgumentException.class, () -> new AVLTree(new int[] { 1, 2 }, new String[] { "a" }));
+		assertThrows(IllegalArgumentException.class,
+				() -> new AVLTree(new int[] { 1, 3, 2 }, new String[] { "a", "b", "c" }));
+		assertThrows(IllegalArgumentException.class, () -> new AVLTree(new int[] { 1, 1 }, new String[] { "a", "b" }));
+	}
+}
@@ -0,0 +1,70 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentAVLTreeTest {
+
+	// readers must not record into the wrapped tree`s metrics, which only writers may touch
+	@Test
+	void readersLeaveMetricsToWriters() throws Exception {
+		AVLTree inner = new AVLTree();
+		AVLTreeMetrics metrics = inner.enableMetrics();
+		ConcurrentAVLTree tree = new ConcurrentAVLTree(inner);
+		for (int k = 0; k < 1000; k += 2) {
+			tree.insert(k, "v" + k);
+		}
+
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < 3; r++) {
+			int id = r;
+			readers.add(new Thread(() -> {
+				Random random = new Random(id);
+				try {
+					while (done.get() == false) {
+						int k = 2 * random.nextInt(500);
+						assertEquals("v" + k, tree.search(k));
+						assertEquals("v0", tree.min());
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}));
+		}
+		readers.forEach(Thread::start);
+
+		int writes = 0;
+		Random random = new Random(9);
+		for (int i = 0; i < 200_000; i++) {
+			int k = 2 * random.nextInt(500) + 1;
+			tree.insert(k, "odd");
+			tree.delete(k);
+			writes += 2;
+		}
+		done.set(true);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+
+		// one search path per insert and delete, including the 500 initial inserts
+		assertEquals(writes + 500, metrics.getSearches());
+		int[] keys = new int[500];
+		for (int i = 0; i < 500; i++) {
+			keys[i] = 2 * i;
+		}
+		assertArrayEquals(keys, tree.keysToArray());
+	}
+}
@@ -0,0 +1,102 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DurableAVLTreeTest {
+
+	@TempDir
+	Path dir;
+
+	// random inserts and deletes on both, checking that they agree on what changed
+	private static void randomOps(DurableAVLTree store, TreeMap<Integer, String> expected, Random random, int ops)
+			throws IOException {
+		for (int op = 0; op < ops; op++) {
+			int k = random.nextInt(500);
+			if (random.nextInt(3) > 0) {
+				String info = k % 11 == 0 ? null : "v" + op;
+				assertEquals(expected.containsKey(k), store.insert(k, info) == -1, "insert " + k);
+				if (expected.containsKey(k) == false) {
+					expected.put(k, info);
+				}
+			} else {
+				assertEquals(expected.containsKey(k), store.delete(k) != -1, "delete " + k);
+				expected.remove(k);
+			}
+		}
+	}
+
+	@Test
+	void recoversFromSnapshotAndLog() throws IOException {
+		Random random = new Random(1);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		try (DurableAVLTree store = new DurableAVLTree(this.dir, 8)) {
+			randomOps(store, expected, random, 1000);
+			store.checkpoint();
+			assertEquals(0, Files.size(this.dir.resolve("wal.log")));
+			randomOps(store, expected, random, 1000);
+		}
+
+		try (DurableAVLTree store = new DurableAVLTree(this.dir, 8)) {
+			TreeAssert.assertTree(store.getTree(), expected);
+			randomOps(store, expected, random, 500);
+			// a crash after sync: a second store opened on the directory sees every change
+			store.sync();
+			try (DurableAVLTree recovered = new DurableAVLTree(this.dir, 8)) {
+				TreeAssert.assertTree(recovered.getTree(), expected);
+			}
+		}
+	}
+
+	@Test
+	void tornTailIsCutOff() throws IOException {
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		try (DurableAVLTree store = new DurableAVLTree(this.dir, 1)) {
+			randomOps(store, expected, new Random(2), 200);
+		}
+		Path log = this.dir.resolve("wal.log");
+		long size = Files.size(log);
+		// the header of a record whose payload never made it to the disk
+		Files.write(log, new byte[] { 0, 0, 0, 9, 1, 2, 3, 4, 1 }, StandardOpenOption.APPEND);
+
+		try (DurableAVLTree store = new DurableAVLTree(this.dir, 1)) {
+			TreeAssert.assertTree(store.getTree(), expected);
+			assertEquals(size, Files.size(log));
+			store.insert(1000, "after");
+			expected.put(1000, "after");
+		}
+		try (DurableAVLTree store = new DurableAVLTree(this.dir, 1)) {
+			TreeAssert.assertTree(store.getTree(), expected);
+		}
+	}
+
+	@Test
+	void failedLogWriteLeavesTheTreeUnchanged() throws IOException {
+		DurableAVLTree store = new DurableAVLTree(this.dir, 1);
+		store.insert(1, "one");
+		store.close();
+
+		// every append syncs, and the closed log makes the sync fail
+		assertThrows(IOException.class, () -> store.insert(2, "two"));
+		assertNull(store.search(2));
+		assertThrows(IOException.class, () -> store.delete(1));
+		assertEquals("one", store.search(1));
+		assertEquals(1, store.size());
+
+		try (DurableAVLTree reopened = new DurableAVLTree(this.dir, 1)) {
+			assertEquals(1, reopened.size());
+			assertEquals("one", reopened.search(1));
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class FineGrainedAVLTreeTest {
+
+	private static void assertItems(FineGrainedAVLTree tree, TreeMap<Integer, String> expected) {
+		tree.checkInvariants();
+		assertEquals(expected.size(), tree.size());
+		assertEquals(expected.isEmpty(), tree.empty());
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+		if (expected.isEmpty() == false) {
+			assertEquals(expected.firstEntry().getValue(), tree.min());
+			assertEquals(expected.lastEntry().getValue(), tree.max());
+		}
+	}
+
+	@Test
+	void emptyTree() {
+		FineGrainedAVLTree tree = new FineGrainedAVLTree();
+		assertTrue(tree.empty());
+		assertNull(tree.search(0));
+		assertNull(tree.min());
+		assertNull(tree.max());
+		assertEquals(false, tree.delete(0));
+		assertEquals(0, tree.keysToArray().length);
+	}
+
+	@Test
+	void singleThreadMatchesTreeMap() {
+		Random random = new Random(1);
+		for (int round = 0; round < 100; round++) {
+			FineGrainedAVLTree tree = new FineGrainedAVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int range = 1 + random.nextInt(1000);
+
+			for (int op = 0; op < 1000; op++) {
+				int k = random.nextInt(range) - range / 2;
+				if (random.nextInt(3) > 0) {
+					assertEquals(expected.containsKey(k) == false, tree.insert(k, "v" + k), "insert " + k);
+					expected.putIfAbsent(k, "v" + k);
+				} else {
+					assertEquals(expected.containsKey(k), tree.delete(k), "delete " + k);
+					expected.remove(k);
+				}
+				assertEquals(expected.get(k), tree.search(k));
+			}
+			assertItems(tree, expected);
+		}
+	}
+
+	@Test
+	void sequentialKeysStayBalanced() {
+		FineGrainedAVLTree tree = new FineGrainedAVLTree();
+		for (int k = 0; k < 100_000; k++) {
+			tree.insert(k, null);
+		}
+		// a strict AVL tree of 100k keys is at most 1.44 log2(n) high
+		assertTrue(tree.checkInvariants() <= 24);
+		assertEquals(100_000, tree.size());
+
+		for (int k = 0; k < 100_000; k += 2) {
+			tree.delete(k);
+		}
+		tree.checkInvariants();
+		assertEquals(50_000, tree.keysToArray().length);
+		assertNull(tree.min());
+	}
+
+	@Test
+	void extremeKeys() {
+		FineGrainedAVLTree tree = new FineGrainedAVLTree();
+		tree.insert(Integer.MIN_VALUE, "min");
+		tree.insert(Integer.MAX_VALUE, "max");
+		tree.insert(0, "zero");
+		assertEquals("min", tree.search(Integer.MIN_VALUE));
+		assertEquals("min", tree.min());
+		assertEquals("max", tree.max());
+		assertTrue(tree.delete(Integer.MIN_VALUE));
+		assertEquals("zero", tree.min());
+	}
+
+	// every thread inserts and deletes its own keys, while readers look up keys that are never deleted;
+	// after the writers are done the tree must hold exactly what each writer left, and be balanced
+	@Test
+	void concurrentWritersAndReaders() throws Exception {
+		int writers = 4;
+		int readers = 2;
+		int stable = 2000;
+		FineGrainedAVLTree tree = new FineGrainedAVLTree();
+		for (int k = 0; k < stable; k++) {
+			tree.insert(k * writers * 2, "stable");
+		}
+
+		List<TreeMap<Integer, String>> left = new ArrayList<>();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		AtomicBoolean done = new AtomicBoolean();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+
+		for (int w = 0; w < writers; w++) {
+			int id = w;
+			TreeMap<Integer, String> mine = new TreeMap<>();
+			left.add(mine);
+			threads.add(new Thread(() -> {
+				Random random = new Random(id);
+				try {
+					start.await();
+					for (int op = 0; op < 200_000; op++) {
+						// odd keys of the form (2m+1) * writers + id belong to this writer only
+						int k = (2 * random.nextInt(stable) + 1) * writers + id;
+						if (random.nextBoolean()) {
+							assertEquals(mine.containsKey(k) == false, tree.insert(k, "w" + k));
+							mine.putIfAbsent(k, "w" + k);
+						} else {
+							assertEquals(mine.containsKey(k), tree.delete(k));
+							mine.remove(k);
+						}
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}));
+		}
+		for (int r = 0; r < readers; r++) {
+			int id = r;
+			threads.add(new Thread(() -> {
+				Random random = new Random(100 + id);
+				try {
+					start.await();
+					while (done.get() == false) {
+						int k = random.nextInt(stable) * writers * 2;
+						assertEquals("stable", tree.search(k), "stable key " + k);
+						assertEquals("stable", tree.min());
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (int i = 0; i < writers; i++) {
+			threads.get(i).join();
+		}
+		done.set(true);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k = 0; k < stable; k++) {
+			expected.put(k * writers * 2, "stable");
+		}
+		left.forEach(expected::putAll);
+		assertItems(tree, expected);
+		for (int k : expected.keySet()) {
+			assertEquals(expected.get(k), tree.search(k));
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class FrozenAVLTreeTest {
+
+	// compares every query of frozen with expected, for keys below, at, between and above the stored keys
+	private static void assertFrozen(FrozenAVLTree frozen, TreeMap<Integer, String> expected, List<Integer> queries) {
+		List<Integer> keys = new ArrayList<>(expected.keySet());
+		assertEquals(expected.size(), frozen.size());
+		assertEquals(expected.isEmpty(), frozen.empty());
+		assertEquals(expected.isEmpty() ? null : expected.firstEntry().getValue(), frozen.min());
+		assertEquals(expected.isEmpty() ? null : expected.lastEntry().getValue(), frozen.max());
+		for (int i = 0; i < keys.size(); i++) {
+			assertEquals(keys.get(i), frozen.keyAt(i), "keyAt " + i);
+			assertEquals(expected.get(keys.get(i)), frozen.infoAt(i), "infoAt " + i);
+		}
+
+		for (int k : queries) {
+			assertEquals(expected.get(k), frozen.search(k), "search " + k);
+			assertEquals(expected.headMap(k).size(), frozen.rank(k), "rank " + k);
+			Integer ceiling = expected.ceilingKey(k);
+			assertEquals(ceiling == null ? -1 : expected.headMap(ceiling).size(), frozen.ceilingIndex(k), "ceilingIndex " + k);
+			Integer floor = expected.floorKey(k);
+			assertEquals(floor == null ? -1 : expected.headMap(floor).size(), frozen.floorIndex(k), "floorIndex " + k);
+		}
+	}
+
+	// every stored key, the keys right next to them and the extremes of int
+	private static List<Integer> queries(TreeMap<Integer, String> expected) {
+		List<Integer> queries = new ArrayList<>(List.of(Integer.MIN_VALUE, Integer.MAX_VALUE, 0));
+		for (int k : expected.keySet()) {
+			queries.add(k - 1);
+			queries.add(k);
+			queries.add(k + 1);
+		}
+		return queries;
+	}
+
+	@Test
+	void emptySnapshot() {
+		FrozenAVLTree frozen = new AVLTree().freeze();
+		assertFrozen(frozen, new TreeMap<>(), List.of(Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE));
+		assertNull(frozen.min());
+		assertEquals(-1, frozen.floorIndex(5));
+		assertEquals(-1, frozen.ceilingIndex(5));
+	}
+
+	@Test
+	void everyShapeMatchesTreeMap() {
+		// the last level of the Eytzinger layout is full, one short or one over
+		List<Integer> sizes = new ArrayList<>(List.of(1, 2, 3, 1000));
+		for (int p = 2; p <= 512; p *= 2) {
+			sizes.add(p - 1);
+			sizes.add(p);
+			sizes.add(p + 1);
+		}
+
+		Random random = new Random(1);
+		for (int n : sizes) {
+			// keys 3 apart, so k - 1 and k + 1 fall between them
+			AVLTree tree = new AVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			List<Integer> order = new ArrayList<>();
+			for (int k = 0; k < n; k++) {
+				order.add(k);
+			}
+			Collections.shuffle(order, random);
+			for (int k : order) {
+				tree.insert(3 * k - n, "v" + k);
+				expected.put(3 * k - n, "v" + k);
+			}
+			assertFrozen(tree.freeze(), expected, queries(expected));
+		}
+	}
+
+	@Test
+	void extremeKeysAndRandomTrees() {
+		AVLTree tree = new AVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k : new int[] { Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE }) {
+			tree.insert(k, "e" + k);
+			expected.put(k, "e" + k);
+		}
+		List<Integer> queries = List.of(Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -2, -1, 0, 1, Integer.MAX_VALUE - 1,
+				Integer.MAX_VALUE);
+		assertFrozen(tree.freeze(), expected, queries);
+
+		Random random = new Random(2);
+		for (int round = 0; round < 50; round++) {
+			expected = new TreeMap<>();
+			tree = TreeAssert.randomTree(random, random.nextInt(300), -500, 1000, expected);
+			List<Integer> scattered = new ArrayList<>();
+			for (int q = 0; q < 200; q++) {
+				scattered.add(random.nextInt(1100) - 550);
+			}
+			assertFrozen(tree.freeze(), expected, scattered);
+		}
+	}
+
+	@Test
+	void snapshotIgnoresLaterChanges() {
+		AVLTree tree = new AVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k = 0; k < 100; k += 2) {
+			tree.insert(k, "v" + k);
+			expected.put(k, "v" + k);
+		}
+		FrozenAVLTree frozen = tree.freeze();
+		for (int k = 0; k < 50; k++) {
+			tree.insert(2 * k + 1, "odd");
+			tree.delete(2 * k);
+		}
+		assertFrozen(frozen, expected, queries(expected));
+		assertEquals(50, tree.freeze().size());
+		assertEquals("odd", tree.freeze().min());
+	}
+}
@@ -0,0 +1,153 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class IntervalAVLTreeTest {
+
+	// the starts of the expected intervals (start -> end) that overlap [lo, hi], in start order
+	private static int[] overlapping(TreeMap<Integer, Integer> expected, int lo, int hi) {
+		return expected.entrySet().stream().filter(e -> e.getKey() <= hi && e.getValue() >= lo)
+				.mapToInt(Map.Entry::getKey).toArray();
+	}
+
+	private static int[] starts(IntervalAVLTree.IntervalNode[] nodes) {
+		int[] starts = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			starts[i] = nodes[i].getKey();
+		}
+		return starts;
+	}
+
+	// checks the tree`s structure, the end of every interval and a batch of queries against expected
+	private static void assertIntervals(AVLTree tree, TreeMap<Integer, Integer> expected, Random random, int range) {
+		assertTrue(tree instanceof IntervalAVLTree);
+		IntervalAVLTree intervals = (IntervalAVLTree) tree;
+		TreeAssert.assertStructure(tree, true);
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+
+		int[] points = new int[40];
+		for (int q = 0; q < points.length; q++) {
+			points[q] = random.nextInt(range + 20) - 10;
+			int hi = points[q] + random.nextInt(range / 10 + 1);
+			IntervalAVLTree.IntervalNode[] found = intervals.overlapping(points[q], hi);
+			assertArrayEquals(overlapping(expected, points[q], hi), starts(found), "[" + points[q] + ", " + hi + "]");
+			for (IntervalAVLTree.IntervalNode node : found) {
+				assertEquals(expected.get(node.getKey()), node.getEnd());
+			}
+			assertArrayEquals(overlapping(expected, points[q], points[q]), starts(intervals.stab(points[q])));
+		}
+
+		// scattered points are stabbed one by one, points clustered in a window share one walk
+		int[] clustered = new int[points.length];
+		int window = random.nextInt(range + 20) - 10;
+		for (int q = 0; q < clustered.length; q++) {
+			clustered[q] = window + random.nextInt(20);
+		}
+		for (int[] batch : new int[][] { points, clustered }) {
+			IntervalAVLTree.IntervalNode[][] all = intervals.stabAll(batch);
+			for (int q = 0; q < batch.length; q++) {
+				assertArrayEquals(overlapping(expected, batch[q], batch[q]), starts(all[q]), "stabAll " + batch[q]);
+			}
+		}
+	}
+
+	@Test
+	void emptyTreeAndBadIntervals() {
+		IntervalAVLTree tree = new IntervalAVLTree();
+		assertEquals(0, tree.stab(5).length);
+		assertEquals(0, tree.overlapping(0, 100).length);
+		assertEquals(2, tree.stabAll(new int[] { 1, 2 }).length);
+		assertEquals(0, tree.stabAll(new int[0]).length);
+		assertThrows(IllegalArgumentException.class, () -> tree.insert(5, 4, "backwards"));
+
+		tree.insert(5, 9, "a");
+		assertEquals(-1, tree.insert(5, 20, "same start"));
+		assertEquals(0, tree.overlapping(7, 6).length);
+		assertEquals(9, tree.stab(9)[0].getEnd());
+		assertEquals(0, tree.stab(10).length);
+	}
+
+	@Test
+	void insertAndDeleteMatchBruteForce() {
+		Random random = new Random(1);
+		int range = 2000;
+		IntervalAVLTree tree = new IntervalAVLTree();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int op = 0; op < 6000; op++) {
+			int start = random.nextInt(range);
+			if (random.nextInt(3) > 0) {
+				// mostly short windows, some long ones that cover many others
+				int end = start + (random.nextInt(10) == 0 ? random.nextInt(range / 2) : random.nextInt(20));
+				assertEquals(expected.containsKey(start), tree.insert(start, end, "w" + start) == -1);
+				expected.putIfAbsent(start, end);
+			} else {
+				tree.delete(start);
+				expected.remove(start);
+			}
+			if (op % 500 == 0) {
+				assertIntervals(tree, expected, random, range);
+			}
+		}
+		assertIntervals(tree, expected, random, range);
+	}
+
+	@Test
+	void splitJoinCopyAndBatchesKeepEnds() {
+		Random random = new Random(2);
+		int range = 1000;
+		for (int round = 0; round < 30; round++) {
+			IntervalAVLTree tree = new IntervalAVLTree();
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < 200; i++) {
+				int start = random.nextInt(range);
+				int end = start + random.nextInt(100);
+				tree.insert(start, end, "w");
+				expected.putIfAbsent(start, end);
+			}
+
+			// insertAll adds point intervals, deleteAll splits and joins
+			int[] batch = { random.nextInt(range), random.nextInt(range), random.nextInt(range) };
+			tree.insertAll(batch, new String[] { "p", "p", "p" });
+			for (int k : batch) {
+				expected.putIfAbsent(k, k);
+			}
+			tree.deleteAll(new int[] { random.nextInt(range), random.nextInt(range) });
+			expected.keySet().retainAll(Arrays.stream(tree.keysToArray()).boxed().toList());
+			assertIntervals(tree, expected, random, range);
+
+			AVLTree copy = tree.copy();
+			assertIntervals(copy, expected, random, range);
+
+			int x = expected.firstKey();
+			int xEnd = expected.get(x);
+			AVLTree[] parts = tree.split(x);
+			assertIntervals(parts[0], new TreeMap<>(expected.headMap(x)), random, range);
+			assertIntervals(parts[1], new TreeMap<>(expected.tailMap(x, false)), random, range);
+
+			// a node from the copy keeps its end when it is joined in
+			IntervalAVLTree.IntervalNode node = ((IntervalAVLTree) copy).stab(x)[0];
+			assertEquals(xEnd, node.getEnd());
+			copy.delete(x);
+			parts[0].join(node, parts[1]);
+			assertIntervals(parts[0], expected, random, range);
+
+			int lo = random.nextInt(range);
+			int hi = lo + random.nextInt(range / 4);
+			AVLTree middle = parts[0].subTree(lo, hi);
+			TreeMap<Integer, Integer> cut = new TreeMap<>(expected.subMap(lo, true, hi, true));
+			expected.keySet().removeAll(cut.keySet());
+			assertIntervals(parts[0], expected, random, range);
+			assertIntervals(middle, cut, random, range);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+
+class IteratorTest {
+
+	private static List<Integer> keys(Iterator<AVLTree.IAVLNode> iterator) {
+		List<Integer> keys = new ArrayList<>();
+		while (iterator.hasNext()) {
+			keys.add(iterator.next().getKey());
+		}
+		return keys;
+	}
+
+	@Test
+	void boundedScansMatchTreeMap() {
+		Random random = new Random(1);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = TreeAssert.randomTree(random, 500, -1000, 2000, expected);
+
+		for (int i = 0; i < 300; i++) {
+			int from = random.nextInt(2200) - 1100;
+			int to = from + random.nextInt(600) - 100;
+			NavigableMap<Integer, String> range = from > to ? new TreeMap<>() : expected.subMap(from, true, to, true);
+
+			assertEquals(new ArrayList<>(range.keySet()), keys(tree.iterator(from, to, true)));
+			assertEquals(new ArrayList<>(range.descendingKeySet()), keys(tree.iterator(from, to, false)));
+		}
+		assertEquals(new ArrayList<>(expected.keySet()), keys(tree.iterator()));
+	}
+
+	@Test
+	void exhaustedIteratorThrows() {
+		AVLTree tree = new AVLTree();
+		tree.insert(1, "one");
+		Iterator<AVLTree.IAVLNode> iterator = tree.iterator(2, 10, true);
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, iterator::next);
+
+		iterator = tree.iterator();
+		assertEquals(1, iterator.next().getKey());
+		assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	@Test
+	void spliteratorIsSizedButNotImmutable() {
+		Random random = new Random(2);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = TreeAssert.randomTree(random, 300, 0, 1000, expected);
+
+		Spliterator<AVLTree.IAVLNode> spliterator = tree.spliterator(100, 700);
+		assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SIZED));
+		assertFalse(spliterator.hasCharacteristics(Spliterator.IMMUTABLE));
+		assertEquals(expected.subMap(100, true, 700, true).size(), spliterator.estimateSize());
+
+		List<String> infos = StreamSupport.stream(tree.spliterator(100, 700), false).map(AVLTree.IAVLNode::getValue)
+				.collect(Collectors.toList());
+		assertEquals(new ArrayList<>(expected.subMap(100, true, 700, true).values()), infos);
+	}
+}
@@ -0,0 +1,123 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+// LongArrayAVLTree is generated from ArrayAVLTree, so on keys in the same order both must return the same counts
+class LongArrayAVLTreeTest {
+
+	// an order-preserving map of int keys to long keys outside the int range
+	private static long wide(int k) {
+		return ((long) k << 33) + 7;
+	}
+
+	private static void assertMatches(TreeMap<Long, String> expected, LongArrayAVLTree actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.empty());
+		assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).toArray(), actual.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), actual.infoToArray());
+		assertEquals(expected.isEmpty() ? null : expected.firstEntry().getValue(), actual.min());
+		assertEquals(expected.isEmpty() ? null : expected.lastEntry().getValue(), actual.max());
+	}
+
+	@Test
+	void emptyTree() {
+		LongArrayAVLTree tree = new LongArrayAVLTree();
+		assertEquals(0, tree.size());
+		assertNull(tree.search(Long.MAX_VALUE));
+		assertNull(tree.min());
+		assertEquals(-1, tree.delete(Long.MIN_VALUE));
+		assertEquals(0, tree.keysToArray().length);
+		assertEquals(0, tree.rank(1L << 40));
+	}
+
+	@Test
+	void insertAndDeleteCountLikeArrayAVLTree() {
+		Random random = new Random(1);
+		for (int round = 0; round < 100; round++) {
+			ArrayAVLTree ints = new ArrayAVLTree(1);
+			LongArrayAVLTree tree = new LongArrayAVLTree(1);
+			TreeMap<Long, String> expected = new TreeMap<>();
+			int range = 1 + random.nextInt(1000);
+
+			for (int op = 0; op < 600; op++) {
+				int k = random.nextInt(range) - range / 2;
+				if (random.nextInt(3) > 0) {
+					assertEquals(ints.insert(k, "v" + k), tree.insert(wide(k), "v" + k), "insert " + k);
+					expected.putIfAbsent(wide(k), "v" + k);
+				} else {
+					assertEquals(ints.delete(k), tree.delete(wide(k)), "delete " + k);
+					expected.remove(wide(k));
+				}
+				assertEquals(expected.get(wide(k)), tree.search(wide(k)));
+				// a key that agrees with wide(k) in its low 32 bits only
+				assertNull(tree.search(wide(k) + (1L << 32)));
+			}
+			assertMatches(expected, tree);
+		}
+	}
+
+	@Test
+	void selectAndRankOverTheWholeLongRange() {
+		Random random = new Random(2);
+		TreeMap<Long, String> expected = new TreeMap<>();
+		LongArrayAVLTree tree = new LongArrayAVLTree();
+		for (long k : new long[] { Long.MIN_VALUE, -1, 0, Long.MAX_VALUE }) {
+			tree.insert(k, "e" + k);
+			expected.put(k, "e" + k);
+		}
+		for (int i = 0; i < 2000; i++) {
+			long k = random.nextLong();
+			tree.insert(k, "v" + k);
+			expected.put(k, "v" + k);
+		}
+		assertMatches(expected, tree);
+
+		List<Long> keys = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < keys.size(); i++) {
+			assertEquals(keys.get(i), tree.select(i));
+			assertEquals(i, tree.rank(keys.get(i)));
+		}
+		for (int q = 0; q < 500; q++) {
+			long k = random.nextLong();
+			assertEquals(expected.headMap(k).size(), tree.rank(k));
+		}
+	}
+
+	@Test
+	void splitAndJoinCountLikeArrayAVLTree() {
+		Random random = new Random(3);
+		for (int round = 0; round < 200; round++) {
+			ArrayAVLTree ints = new ArrayAVLTree();
+			LongArrayAVLTree tree = new LongArrayAVLTree();
+			TreeMap<Long, String> expected = new TreeMap<>();
+			int n = 1 + random.nextInt(400);
+			for (int i = 0; i < n; i++) {
+				int k = random.nextInt(2000);
+				ints.insert(k, "v" + k);
+				tree.insert(wide(k), "v" + k);
+				expected.put(wide(k), "v" + k);
+			}
+
+			int[] keys = ints.keysToArray();
+			int x = keys[random.nextInt(keys.length)];
+			ArrayAVLTree[] intParts = ints.split(x);
+			LongArrayAVLTree[] parts = tree.split(wide(x));
+			assertEquals(0, tree.size());
+			assertMatches(new TreeMap<>(expected.headMap(wide(x))), parts[0]);
+			assertMatches(new TreeMap<>(expected.tailMap(wide(x), false)), parts[1]);
+
+			assertEquals(intParts[0].join(x, "x", intParts[1]), parts[0].join(wide(x), "x", parts[1]));
+			expected.put(wide(x), "x");
+			assertMatches(expected, parts[0]);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentAVLTreeTest {
+
+	private static void assertItems(PersistentAVLTree tree, TreeMap<Integer, String> expected) {
+		tree.checkInvariants();
+		assertEquals(expected.size(), tree.size());
+		assertEquals(expected.isEmpty(), tree.empty());
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+		assertEquals(expected.isEmpty() ? null : expected.firstEntry().getValue(), tree.min());
+		assertEquals(expected.isEmpty() ? null : expected.lastEntry().getValue(), tree.max());
+	}
+
+	@Test
+	void emptyTree() {
+		PersistentAVLTree tree = new PersistentAVLTree();
+		assertItems(tree, new TreeMap<>());
+		assertNull(tree.search(0));
+		assertSame(tree, tree.delete(0));
+		assertEquals(-1, tree.checkInvariants());
+	}
+
+	// every version is kept and must still hold exactly what it held when it was made
+	@Test
+	void oldVersionsAreUnchanged() {
+		Random random = new Random(1);
+		List<PersistentAVLTree> versions = new ArrayList<>();
+		List<TreeMap<Integer, String>> contents = new ArrayList<>();
+		PersistentAVLTree tree = new PersistentAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+
+		for (int op = 0; op < 3000; op++) {
+			int k = random.nextInt(500);
+			if (random.nextInt(3) > 0) {
+				PersistentAVLTree next = tree.insert(k, "v" + op);
+				assertEquals(expected.containsKey(k), next == tree, "insert " + k);
+				expected.putIfAbsent(k, "v" + op);
+				tree = next;
+			} else {
+				PersistentAVLTree next = tree.delete(k);
+				assertEquals(expected.containsKey(k) == false, next == tree, "delete " + k);
+				expected.remove(k);
+				tree = next;
+			}
+			assertEquals(expected.get(k), tree.search(k));
+			if (op % 100 == 0) {
+				versions.add(tree);
+				contents.add(new TreeMap<>(expected));
+			}
+		}
+
+		for (int v = 0; v < versions.size(); v++) {
+			assertItems(versions.get(v), contents.get(v));
+		}
+	}
+
+	@Test
+	void sequentialKeysStayBalanced() {
+		PersistentAVLTree tree = new PersistentAVLTree();
+		for (int k = 0; k < 100_000; k++) {
+			tree = tree.insert(k, null);
+		}
+		// a strict AVL tree of 100k keys is at most 1.44 log2(n) high
+		assertTrue(tree.checkInvariants() <= 24);
+		for (int k = 0; k < 100_000; k += 2) {
+			tree = tree.delete(k);
+		}
+		assertTrue(tree.checkInvariants() <= 24);
+		assertEquals(50_000, tree.size());
+	}
+
+	@Test
+	void rankAndSelect() {
+		PersistentAVLTree tree = new PersistentAVLTree();
+		for (int k = 0; k < 1000; k += 3) {
+			tree = tree.insert(k, "v" + k);
+		}
+		int[] keys = tree.keysToArray();
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(keys[i], tree.select(i));
+			assertEquals(i, tree.rank(keys[i]));
+			assertEquals(i + 1, tree.rank(keys[i] + 1));
+		}
+	}
+
+	@Test
+	void splitAndJoinLeaveTheInputs() {
+		Random random = new Random(2);
+		for (int round = 0; round < 200; round++) {
+			PersistentAVLTree tree = new PersistentAVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int n = random.nextInt(300);
+			for (int i = 0; i < n; i++) {
+				int k = random.nextInt(1000);
+				tree = tree.insert(k, "v" + k);
+				expected.put(k, "v" + k);
+			}
+
+			int x = random.nextInt(1000);
+			PersistentAVLTree[] parts = tree.split(x);
+			assertItems(parts[0], new TreeMap<>(expected.headMap(x, false)));
+			assertItems(parts[1], new TreeMap<>(expected.tailMap(x, false)));
+			assertItems(tree, expected);
+
+			// join back in both orders, with x itself as the middle item
+			TreeMap<Integer, String> joined = new TreeMap<>(expected);
+			joined.put(x, "x");
+			assertItems(parts[0].join(x, "x", parts[1]), joined);
+			assertItems(parts[1].join(x, "x", parts[0]), joined);
+			assertItems(parts[0], new TreeMap<>(expected.headMap(x, false)));
+		}
+	}
+}
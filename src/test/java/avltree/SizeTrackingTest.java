@@ -0,0 +1,118 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class SizeTrackingTest {
+
+	// a tree whose sizes went stale under random inserts and deletes, with expected filled to match
+	private static AVLTree staleTree(Random random, TreeMap<Integer, String> expected) {
+		AVLTree tree = TreeAssert.randomTree(random, 300, 0, 1000, expected);
+		tree.disableSizeTracking();
+		for (int op = 0; op < 600; op++) {
+			int k = random.nextInt(1000);
+			if (random.nextBoolean()) {
+				tree.insert(k, "v" + k);
+				expected.putIfAbsent(k, "v" + k);
+			} else {
+				tree.delete(k);
+				expected.remove(k);
+			}
+		}
+		return tree;
+	}
+
+	@Test
+	void lazyTreeStaysValidAndRebuildsOnRank() {
+		Random random = new Random(1);
+		for (int round = 0; round < 20; round++) {
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			AVLTree tree = staleTree(random, expected);
+			assertFalse(tree.isSizeTracking());
+			assertEquals(expected.size(), tree.size());
+			// heights, order and parents are kept, only the subtree sizes are left behind
+			TreeAssert.assertStructure(tree, false);
+			TreeAssert.assertItems(tree, expected);
+
+			int k = random.nextInt(1000);
+			assertEquals(expected.headMap(k).size(), tree.rank(k));
+			assertTrue(tree.isSizeTracking());
+			TreeAssert.assertTree(tree, expected);
+			List<Integer> keys = new ArrayList<>(expected.keySet());
+			for (int i = 0; i < keys.size(); i += 7) {
+				assertEquals(keys.get(i), tree.select(i).getKey());
+			}
+		}
+	}
+
+	@Test
+	void everySizeReaderRebuilds() {
+		// each reader returns the trees it leaves behind, split consumes the tree it is called on
+		List<Function<AVLTree, AVLTree[]>> readers = List.of(
+				t -> { t.select(0); return new AVLTree[] { t }; },
+				t -> { t.rank(500); return new AVLTree[] { t }; },
+				t -> { t.countInRange(100, 600); return new AVLTree[] { t }; },
+				t -> t.split(t.getRoot().getKey()),
+				t -> { t.join(new AVLTree.AVLNode(2000, "j"), new AVLTree()); return new AVLTree[] { t }; },
+				t -> new AVLTree[] { t, t.subTree(100, 400) },
+				t -> { t.insertAll(new int[] { 1001, 1003 }, new String[] { "a", "b" }); return new AVLTree[] { t }; },
+				t -> { t.deleteAll(new int[] { 1, 2, 3 }); return new AVLTree[] { t }; });
+		Random random = new Random(2);
+		for (int r = 0; r < readers.size(); r++) {
+			for (AVLTree tree : readers.get(r).apply(staleTree(random, new TreeMap<>()))) {
+				assertTrue(tree.isSizeTracking(), "reader " + r);
+				if (tree.empty() == false) {
+					TreeAssert.assertStructure(tree, true);
+				}
+			}
+		}
+	}
+
+	@Test
+	void lazyModeSkipsTheSizeWalks() {
+		Random random = new Random(3);
+		AVLTree tracked = new AVLTree();
+		AVLTree lazy = new AVLTree();
+		lazy.disableSizeTracking();
+		AVLTreeMetrics trackedMetrics = tracked.enableMetrics();
+		AVLTreeMetrics lazyMetrics = lazy.enableMetrics();
+		for (int op = 0; op < 2000; op++) {
+			int k = random.nextInt(500);
+			if (op % 3 == 2) {
+				tracked.delete(k);
+				lazy.delete(k);
+			} else {
+				tracked.insert(k, "v");
+				lazy.insert(k, "v");
+			}
+		}
+		assertTrue(trackedMetrics.getSizeWalks() > 0);
+		assertEquals(0, lazyMetrics.getSizeWalks());
+		assertEquals(tracked.size(), lazy.size());
+	}
+
+	@Test
+	void copyKeepsTheModeAndConcurrentTreesTrack() {
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree tree = staleTree(new Random(4), expected);
+		AVLTree copy = tree.copy();
+		assertFalse(copy.isSizeTracking());
+		TreeAssert.assertItems(copy, expected);
+
+		new ConcurrentAVLTree(tree);
+		assertTrue(tree.isSizeTracking());
+		TreeAssert.assertTree(tree, expected);
+
+		tree.enableSizeTracking();
+		assertTrue(tree.isSizeTracking());
+	}
+}
@@ -0,0 +1,91 @@
+package avltree;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Invariant checks shared by the tests: a tree is valid if its keys are in
+ * order, its parent links match its child links, every node is balanced, and
+ * ranks and subtree sizes match the subtrees; it matches a TreeMap if it holds
+ * the same items.
+ */
+final class TreeAssert {
+
+	private TreeAssert() {
+	}
+
+	// asserts that tree is a valid AVL tree holding exactly the items of expected
+	static void assertTree(AVLTree tree, TreeMap<Integer, String> expected) {
+		assertStructure(tree, true);
+		assertItems(tree, expected);
+	}
+
+	// asserts that tree is a valid AVL tree, checking subtree sizes too if checkSizes
+	static void assertStructure(AVLTree tree, boolean checkSizes) {
+		AVLTree.IAVLNode root = tree.getRoot();
+		if (root == null) {
+			assertEquals(0, tree.size());
+			return;
+		}
+		assertNull(root.getParent(), "root has a parent");
+		check(root, null, Long.MIN_VALUE, Long.MAX_VALUE, checkSizes);
+		if (checkSizes) {
+			assertEquals(root.getSize(), tree.size(), "tree size");
+		}
+	}
+
+	// asserts that tree holds exactly the items of expected, in order
+	static void assertItems(AVLTree tree, TreeMap<Integer, String> expected) {
+		assertEquals(expected.size(), tree.size(), "size");
+		assertEquals(expected.isEmpty(), tree.empty(), "empty");
+
+		int[] keys = new int[expected.size()];
+		String[] infos = new String[expected.size()];
+		int i = 0;
+		for (Map.Entry<Integer, String> e : expected.entrySet()) {
+			keys[i] = e.getKey();
+			infos[i] = e.getValue();
+			i++;
+		}
+		assertArrayEquals(keys, tree.keysToArray(), "keys");
+		assertArrayEquals(infos, tree.infoToArray(), "infos");
+	}
+
+	// checks the subtree of node, whose keys must be in (lo, hi), returns its rank
+	private static int check(AVLTree.IAVLNode node, AVLTree.IAVLNode parent, long lo, long hi, boolean checkSizes) {
+		if (node.isRealNode() == false) {
+			return -1;
+		}
+
+		int key = node.getKey();
+		assertSame(parent, node.getParent(), "parent of " + key);
+		assertTrue(lo < key && key < hi, "order at " + key);
+
+		int left = check(node.getLeft(), node, lo, key, checkSizes);
+		int right = check(node.getRight(), node, key, hi, checkSizes);
+		assertTrue(Math.abs(left - right) <= 1, "balance at " + key);
+		assertEquals(Math.max(left, right) + 1, node.getHeight(), "rank of " + key);
+		if (checkSizes) {
+			assertEquals(node.getLeft().getSize() + node.getRight().getSize() + 1, node.getSize(), "size of " + key);
+		}
+		return node.getHeight();
+	}
+
+	// returns a tree of about n random items with keys in [lo, lo + range), and fills expected with them
+	static AVLTree randomTree(Random random, int n, int lo, int range, TreeMap<Integer, String> expected) {
+		AVLTree tree = new AVLTree();
+		for (int i = 0; i < n; i++) {
+			int k = lo + random.nextInt(range);
+			tree.insert(k, "v" + k);
+			expected.putIfAbsent(k, "v" + k);
+		}
+		return tree;
+	}
+}